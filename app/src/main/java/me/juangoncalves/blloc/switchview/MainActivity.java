@@ -1,16 +1,36 @@
 package me.juangoncalves.blloc.switchview;
 
 import android.os.Bundle;
+import android.util.Log;
 import android.view.View;
 import android.widget.Button;
 import android.widget.TextView;
 
 import androidx.appcompat.app.AppCompatActivity;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Comparator;
+
 import me.juangoncalves.switchview.BllocSwitchView;
+import me.juangoncalves.switchview.GestureTrace;
+import me.juangoncalves.switchview.GestureTraceRecorder;
 
 public class MainActivity extends AppCompatActivity {
 
+    private static final String TAG = "MainActivity";
+    private static final String GESTURES_FOLDER = "gestures";
+    private static final String GESTURE_TRACE_EXTENSION = ".bsgt";
+    // Only the most recent traces are kept
+    private static final int MAX_GESTURE_TRACES = 20;
+
+    private final GestureTraceRecorder gestureRecorder =
+            BuildConfig.RECORD_GESTURES ? new GestureTraceRecorder() : null;
+
     private Button toggleButton;
     private Button checkButton;
     private Button uncheckButton;
@@ -29,6 +49,24 @@ public class MainActivity extends AppCompatActivity {
         initView();
     }
 
+    @Override
+    protected void onResume() {
+        super.onResume();
+        if (gestureRecorder != null) {
+            gestureRecorder.start(bllocSwitch);
+        }
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        if (gestureRecorder == null) return;
+        GestureTrace trace = gestureRecorder.stop();
+        if (trace != null) {
+            saveGestureTrace(trace);
+        }
+    }
+
     private void initView() {
         toggleButton.setOnClickListener(new View.OnClickListener() {
             @Override
@@ -51,4 +89,49 @@ public class MainActivity extends AppCompatActivity {
         versionTextView.setText(BuildConfig.VERSION_NAME);
     }
 
+    /**
+     * Stores the gestures made on the switch while the activity was in the foreground, so they
+     * can be pulled from the device and replayed by the tests of the library. Only debug builds
+     * record them, and the oldest traces are deleted once there are more than
+     * {@link #MAX_GESTURE_TRACES}.
+     */
+    private void saveGestureTrace(GestureTrace trace) {
+        File folder = getExternalFilesDir(GESTURES_FOLDER);
+        if (folder == null) return;
+        File file = new File(folder, "trace-" + System.currentTimeMillis() + GESTURE_TRACE_EXTENSION);
+        try {
+            OutputStream out = new FileOutputStream(file);
+            try {
+                trace.writeTo(out);
+            } finally {
+                out.close();
+            }
+            Log.i(TAG, "Gesture trace saved to " + file);
+        } catch (IOException e) {
+            Log.e(TAG, "Unable to save the gesture trace", e);
+        }
+        deleteOldGestureTraces(folder);
+    }
+
+    private static void deleteOldGestureTraces(File folder) {
+        File[] traces = folder.listFiles(new FileFilter() {
+            @Override
+            public boolean accept(File file) {
+                return file.getName().endsWith(GESTURE_TRACE_EXTENSION);
+            }
+        });
+        if (traces == null || traces.length <= MAX_GESTURE_TRACES) return;
+        Arrays.sort(traces, new Comparator<File>() {
+            @Override
+            public int compare(File a, File b) {
+                return Long.compare(b.lastModified(), a.lastModified());
+            }
+        });
+        for (int i = MAX_GESTURE_TRACES; i < traces.length; i++) {
+            if (!traces[i].delete()) {
+                Log.w(TAG, "Unable to delete the gesture trace " + traces[i]);
+            }
+        }
+    }
+
 }
@@ -0,0 +1,36 @@
+package me.juangoncalves.switchview;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Round-trip of the saved state of a switch through {@link SwitchStateCodec}, the encoding
+ * {@code BllocSwitchView.SavedState} writes to and reads from its parcel. A heap buffer in the
+ * native byte order stands in for the Parcel, which stores an int as 4 bytes in that order.
+ */
+@State(Scope.Thread)
+public class SavedStateBenchmark {
+
+    private ByteBuffer parcel;
+    private boolean checked;
+
+    @Setup
+    public void setUp() {
+        parcel = ByteBuffer.allocate(Integer.SIZE / Byte.SIZE).order(ByteOrder.nativeOrder());
+    }
+
+    @Benchmark
+    public boolean roundTrip() {
+        checked = !checked;
+        parcel.clear();
+        parcel.putInt(SwitchStateCodec.encode(checked));
+        parcel.flip();
+        return SwitchStateCodec.decodeChecked(parcel.getInt());
+    }
+
+}
@@ -0,0 +1,53 @@
+package me.juangoncalves.switchview;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of mapping a position of the inner shape to its width and to the container color, done for
+ * every frame of a drag or a transition.
+ */
+@State(Scope.Thread)
+public class SwitchGeometryBenchmark {
+
+    private static final int POSITIONS = 128;
+
+    private SwitchGeometry geometry;
+    private float[] positions;
+    private int index;
+
+    @Setup
+    public void setUp() {
+        geometry = new SwitchGeometry(1f, 80);
+        geometry.setColor(0xFF5C5C5C);
+        geometry.update(100f, 240f, 21f, 28f);
+        positions = new float[POSITIONS];
+        for (int i = 0; i < POSITIONS; i++) {
+            // Slightly beyond both limits to exercise the clamping too
+            positions[i] = 110f + i * 110f / POSITIONS;
+        }
+    }
+
+    @Benchmark
+    public float widthForPosition() {
+        return geometry.widthForPosition(nextPosition());
+    }
+
+    @Benchmark
+    public int colorForPosition() {
+        return geometry.colorForPosition(nextPosition());
+    }
+
+    @Benchmark
+    public void update() {
+        geometry.update(100f, 240f, 21f, 28f);
+    }
+
+    private float nextPosition() {
+        index = (index + 1) & (POSITIONS - 1);
+        return positions[index];
+    }
+
+}
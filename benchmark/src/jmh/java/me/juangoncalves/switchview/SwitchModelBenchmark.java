@@ -0,0 +1,74 @@
+package me.juangoncalves.switchview;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of the state transitions behind {@code toggle()} and {@code setChecked()}: a full animated
+ * transition, a single animation frame, a drag frame and the non-animated bind path.
+ */
+@State(Scope.Thread)
+public class SwitchModelBenchmark {
+
+    private static final long FRAME_NANOS = 16_666_667L;
+
+    private SwitchModel model;
+    private long frameTime;
+    private boolean checked = true;
+
+    @Setup
+    public void setUp() {
+        SwitchGeometry geometry = new SwitchGeometry(1f, 80);
+        geometry.setColor(0xFF5C5C5C);
+        geometry.update(100f, 240f, 21f, 28f);
+        model = new SwitchModel(geometry, new SwitchAnimator(), true);
+        model.jumpToState(true);
+    }
+
+    /**
+     * Toggles the switch and runs every frame of the transition.
+     */
+    @Benchmark
+    public float toggleTransition() {
+        checked = !checked;
+        model.animateToState(checked, 0L);
+        while (model.needsFrame()) {
+            model.doFrame(frameTime);
+            frameTime += FRAME_NANOS;
+        }
+        return model.getPosition();
+    }
+
+    /**
+     * Advances a transition by one frame, retargeting it whenever it comes to rest.
+     */
+    @Benchmark
+    public float animationFrame() {
+        if (!model.isAnimating()) {
+            checked = !checked;
+            model.animateToState(checked, 0L);
+        }
+        model.doFrame(frameTime);
+        frameTime += FRAME_NANOS;
+        return model.getPosition();
+    }
+
+    @Benchmark
+    public float dragFrame() {
+        model.dragBy(checked ? -3f : 3f);
+        model.doFrame(frameTime);
+        frameTime += FRAME_NANOS;
+        checked = !checked;
+        return model.getPosition();
+    }
+
+    @Benchmark
+    public float jumpToState() {
+        checked = !checked;
+        model.jumpToState(checked);
+        return model.getPosition();
+    }
+
+}
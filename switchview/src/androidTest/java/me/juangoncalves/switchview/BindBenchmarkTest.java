@@ -0,0 +1,67 @@
+package me.juangoncalves.switchview;
+
+import android.content.Context;
+import android.util.Log;
+import android.view.View;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Measures the cost of binding a recycled switch to the state of a row, as a RecyclerView adapter
+ * does while scrolling through a long list. The results are written to logcat.
+ */
+@RunWith(AndroidJUnit4.class)
+public class BindBenchmarkTest {
+
+    private static final String TAG = "BindBenchmark";
+    private static final int ROWS = 10_000;
+    // Number of views kept by a RecyclerView filling a regular screen
+    private static final int RECYCLED_VIEWS = 12;
+
+    @Test
+    public void bindRows() {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+                BllocSwitchView[] views = new BllocSwitchView[RECYCLED_VIEWS];
+                for (int i = 0; i < RECYCLED_VIEWS; i++) {
+                    views[i] = new BllocSwitchView(context, null);
+                    int widthSpec = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+                    views[i].measure(widthSpec, widthSpec);
+                    views[i].layout(0, 0, views[i].getMeasuredWidth(), views[i].getMeasuredHeight());
+                }
+                // Warm up both paths before measuring them
+                scroll(views, true);
+                scroll(views, false);
+
+                long animatedNanos = scroll(views, true);
+                long jumpNanos = scroll(views, false);
+                Log.i(TAG, String.format("Animated bind: %.1f ns/row", (double) animatedNanos / ROWS));
+                Log.i(TAG, String.format("Non-animated bind: %.1f ns/row", (double) jumpNanos / ROWS));
+
+                int lastRow = ROWS - 1;
+                assertEquals(isRowChecked(lastRow), views[lastRow % RECYCLED_VIEWS].isChecked());
+            }
+        });
+    }
+
+    private static long scroll(BllocSwitchView[] views, boolean animate) {
+        long start = System.nanoTime();
+        for (int row = 0; row < ROWS; row++) {
+            views[row % views.length].setChecked(isRowChecked(row), animate);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static boolean isRowChecked(int row) {
+        return row % 3 != 0;
+    }
+
+}
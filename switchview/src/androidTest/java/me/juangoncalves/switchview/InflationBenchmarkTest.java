@@ -0,0 +1,107 @@
+package me.juangoncalves.switchview;
+
+import android.content.Context;
+import android.os.Debug;
+import android.util.Log;
+import android.view.LayoutInflater;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Measures the cost of creating many switches: inflated from a layout, built from a shared style
+ * on the main thread and built from a shared style on a background thread. The time and the heap
+ * retained per switch are written to logcat.
+ */
+@RunWith(AndroidJUnit4.class)
+public class InflationBenchmarkTest {
+
+    private static final String TAG = "InflationBenchmark";
+    private static final int SWITCHES = 500;
+
+    @Test
+    public void createSwitches() throws Exception {
+        final Context context = InstrumentationRegistry.getInstrumentation().getContext();
+        final LayoutInflater inflater = LayoutInflater.from(context);
+        final BllocSwitchStyle style = new BllocSwitchStyle.Builder(context).setChecked(false).build();
+        final Factory inflate = new Factory() {
+            @Override
+            public BllocSwitchView create() {
+                return (BllocSwitchView) inflater.inflate(me.juangoncalves.switchview.test.R.layout.benchmark_switch, null, false);
+            }
+        };
+        final Factory build = new Factory() {
+            @Override
+            public BllocSwitchView create() {
+                return new BllocSwitchView(context, style);
+            }
+        };
+
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                // Warm up both paths before measuring them
+                createAll(inflate);
+                createAll(build);
+                measure("Inflated from layout", inflate);
+                measure("Built from a shared style", build);
+            }
+        });
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    measure("Built from a shared style off the main thread", build);
+                    return null;
+                }
+            }).get();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void measure(String name, Factory factory) {
+        long heapBefore = usedHeap();
+        long nativeBefore = Debug.getNativeHeapAllocatedSize();
+        long start = System.nanoTime();
+        BllocSwitchView[] switches = createAll(factory);
+        long elapsed = System.nanoTime() - start;
+        long heap = usedHeap() - heapBefore;
+        long nativeHeap = Debug.getNativeHeapAllocatedSize() - nativeBefore;
+        Log.i(TAG, String.format("%s: %.1f us/switch, %d bytes/switch retained (%d native)",
+                name, elapsed / 1000.0 / SWITCHES, (heap + nativeHeap) / SWITCHES, nativeHeap / SWITCHES));
+        assertFalse(switches[SWITCHES - 1].isChecked());
+    }
+
+    private static BllocSwitchView[] createAll(Factory factory) {
+        BllocSwitchView[] switches = new BllocSwitchView[SWITCHES];
+        for (int i = 0; i < SWITCHES; i++) {
+            switches[i] = factory.create();
+        }
+        return switches;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        runtime.gc();
+        runtime.runFinalization();
+        runtime.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private interface Factory {
+        BllocSwitchView create();
+    }
+
+}
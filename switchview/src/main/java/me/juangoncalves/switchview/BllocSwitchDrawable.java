@@ -0,0 +1,667 @@
+package me.juangoncalves.switchview;
+
+import android.content.res.Resources;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.ColorFilter;
+import android.graphics.Paint;
+import android.graphics.PixelFormat;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.os.SystemClock;
+import android.view.Choreographer;
+import android.view.View;
+
+import androidx.annotation.ColorInt;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Renders a Blloc switch and animates it between its states without requiring a View, so it can
+ * be drawn inside an existing row view or used as a compound drawable of a TextView.
+ * <p>
+ * The switch is placed at the end of the drawable bounds and centered vertically. Hosts that
+ * handle touches themselves can use {@link #hitTest(float, float)} to find out if an event landed
+ * on the switch and {@link #toggle()} / {@link #dragBy(float)} / {@link #settle(float, float)} to
+ * drive it.
+ */
+public class BllocSwitchDrawable extends Drawable {
+
+    private static final float MIN_INNER_SHAPE_WIDTH = 1f;
+    private static final int MIN_OPACITY = 80;
+
+    /**
+     * Draws the switch shapes on every frame. Used by {@link #RENDER_MODE_RENDER_NODE} before
+     * Android 10.
+     */
+    public static final int RENDER_MODE_VECTOR = 0;
+    /**
+     * Draws pre-rendered frames of the switch shared with other switches of the same size and
+     * color, trading some memory and precision of the thumb position for cheaper frames.
+     */
+    public static final int RENDER_MODE_ATLAS = 1;
+    /**
+     * Default mode. Records the container and the inner shape in render nodes once on Android 10
+     * and later, and moves the inner shape through the properties of its nodes, so the frames of
+     * a transition neither draw the switch again nor record anything. Draws like
+     * {@link #RENDER_MODE_VECTOR} on earlier versions and on canvases that aren't hardware
+     * accelerated.
+     */
+    public static final int RENDER_MODE_RENDER_NODE = 2;
+
+    // Shared by every drawable as the starting point of its own paints, they are never modified
+    // after being created so they can be copied from any thread
+    private static final Paint INNER_SHAPE_PAINT = createInnerShapePaint();
+    private static final Paint CONTAINER_PAINT = createContainerPaint();
+
+    @ColorInt
+    private int containerColor;
+    private int alpha = 0xFF;
+    // Sizes requested for the switch, and the ones it is laid out with to fit in the bounds
+    private SwitchDimensions dimensions;
+    private SwitchDimensions layoutDimensions;
+    // Size of the bounds the layout dimensions were scaled to, -1 to scale them again
+    private int layoutBoundsWidth = -1;
+    private int layoutBoundsHeight = -1;
+    private float containerRoundedCornerRadius;
+    private RectF containerRect = new RectF();
+    private RectF innerShapeRect = new RectF();
+    private final Paint innerShapePaint = new Paint(INNER_SHAPE_PAINT);
+    private final Paint containerPaint = new Paint(CONTAINER_PAINT);
+    private final RectF dirtyRect = new RectF();
+    private final Rect dirtyBounds = new Rect();
+    private int renderMode = RENDER_MODE_RENDER_NODE;
+    @Nullable
+    private SwitchFrameAtlas frameAtlas;
+    private final Paint atlasPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final Rect atlasFrameSrc = new Rect();
+    private final RectF atlasFrameDst = new RectF();
+    // Only created for RENDER_MODE_RENDER_NODE on Android 10 and later
+    @Nullable
+    private SwitchRenderNodes renderNodes;
+    private final SwitchGeometry geometry = new SwitchGeometry(MIN_INNER_SHAPE_WIDTH, MIN_OPACITY);
+
+    private final SwitchAnimator animator = new SwitchAnimator();
+    private final SwitchModel model;
+    private final Choreographer.FrameCallback frameCallback = new SwitchFrameCallback();
+    private SwitchFrameClock frameClock = SwitchFrameClock.CHOREOGRAPHER;
+    @Nullable
+    private BllocSwitchGroup group;
+    private boolean frameScheduled;
+    @Nullable
+    private TransitionListener transitionListener;
+    @Nullable
+    private SwitchMetricsTracker metricsTracker;
+    @Nullable
+    private OnCheckedChangeListener onCheckedChangeListener;
+
+    public BllocSwitchDrawable(@ColorInt int containerColor, boolean checked) {
+        this(containerColor, checked, SwitchDimensions.forDensity(Resources.getSystem().getDisplayMetrics().density));
+    }
+
+    BllocSwitchDrawable(@ColorInt int containerColor, boolean checked, SwitchDimensions dimensions) {
+        this.containerColor = containerColor;
+        this.dimensions = dimensions;
+        layoutDimensions = dimensions;
+        innerShapePaint.setStrokeWidth(dimensions.strokeWidth);
+        model = new SwitchModel(geometry, animator, checked);
+        geometry.setColor(containerColor);
+        updateRenderNodes();
+    }
+
+    public boolean isChecked() {
+        return model.isChecked();
+    }
+
+    public void setChecked(boolean checked) {
+        setChecked(checked, true);
+    }
+
+    /**
+     * @param animate false to move the switch straight to the final state, e.g. when binding a
+     *                recycled row.
+     */
+    public void setChecked(boolean checked, boolean animate) {
+        if (!animate) {
+            jumpToState(checked);
+        } else if (model.isChecked() != checked) {
+            toggle();
+        }
+    }
+
+    public void toggle() {
+        animateToState(!model.isChecked(), 0L);
+    }
+
+    /**
+     * @param listener notified when the state changes, as soon as the switch starts moving to it.
+     */
+    public void setOnCheckedChangeListener(@Nullable OnCheckedChangeListener listener) {
+        onCheckedChangeListener = listener;
+    }
+
+    public void setContainerColor(@ColorInt int containerColor) {
+        this.containerColor = containerColor;
+        geometry.setColor(containerColor);
+        updateFrameAtlas();
+        if (renderNodes != null) {
+            renderNodes.invalidateContainer();
+        }
+        moveInnerShapeTo(model.getDrawnPosition());
+    }
+
+    /**
+     * Sets the size of the switch, which is its intrinsic size. When the bounds are smaller or
+     * larger, the switch is scaled keeping its proportions to fit in them. By default it is 48dp
+     * wide and 24dp high.
+     *
+     * @param width       width of the container in pixels.
+     * @param height      height of the container in pixels.
+     * @param padding     space between the container and the inner shape in pixels.
+     * @param strokeWidth width of the stroke of the inner shape in pixels.
+     */
+    public void setDimensions(float width, float height, float padding, float strokeWidth) {
+        setDimensions(SwitchDimensions.obtain(width, height, padding, strokeWidth));
+    }
+
+    void setDimensions(SwitchDimensions dimensions) {
+        if (this.dimensions == dimensions) return;
+        this.dimensions = dimensions;
+        layoutBoundsWidth = -1;
+        onBoundsChange(getBounds());
+        invalidateSelf();
+    }
+
+    /**
+     * @param renderMode either {@link #RENDER_MODE_VECTOR}, {@link #RENDER_MODE_ATLAS} or
+     *                   {@link #RENDER_MODE_RENDER_NODE}.
+     */
+    public void setRenderMode(int renderMode) {
+        checkRenderMode(renderMode);
+        this.renderMode = renderMode;
+        updateFrameAtlas();
+        updateRenderNodes();
+        invalidateSelf();
+    }
+
+    /**
+     * Sets the memory budget shared by the pre-rendered frames of every switch using
+     * {@link #RENDER_MODE_ATLAS}. The least recently used frames are discarded when exceeded.
+     */
+    public static void setFrameAtlasCacheSize(int maxBytes) {
+        SwitchFrameAtlas.setCacheSize(maxBytes);
+    }
+
+    /**
+     * Configures the spring that moves the switch between its states.
+     *
+     * @param stiffness    higher values make the switch settle faster.
+     * @param dampingRatio 1 settles without bouncing, lower (but positive) values make the switch
+     *                     bounce.
+     */
+    public void setSpring(float stiffness, float dampingRatio) {
+        animator.setSpring(stiffness, dampingRatio);
+    }
+
+    /**
+     * @return true if the given point, in the same coordinates as the bounds, is on the switch.
+     */
+    public boolean hitTest(float x, float y) {
+        return containerRect.contains(x, y);
+    }
+
+    /**
+     * @return true if the switch is still on the final position of its state.
+     */
+    boolean isResting() {
+        return model.isRestingOn(model.isChecked());
+    }
+
+    /**
+     * Stops the running transition (if any) leaving the switch where it currently is, e.g. when
+     * the user puts a finger on it.
+     */
+    public void stopTransition() {
+        boolean wasAnimating = model.stop();
+        unscheduleFrame();
+        if (wasAnimating) {
+            onTransitionEnded(true);
+        }
+    }
+
+    /**
+     * Moves the inner shape horizontally. Consecutive calls are accumulated and applied once on
+     * the next frame.
+     */
+    public void dragBy(float distance) {
+        model.dragBy(distance);
+        scheduleFrame();
+    }
+
+    /**
+     * Draws the inner shape the given distance ahead of where the drag moved it, to make up for
+     * the time it takes for a frame to reach the display. Reset when the drag ends.
+     */
+    void setDragPrediction(float offset) {
+        if (model.setPredictionOffset(offset)) {
+            scheduleFrame();
+        }
+    }
+
+    /**
+     * Ends a drag by animating the switch to its closest state, or to the state in the direction
+     * of the fling if the release velocity is fast enough.
+     *
+     * @param releaseVelocity      horizontal velocity in pixels per second.
+     * @param minimumFlingVelocity velocity from which the release is treated as a fling.
+     */
+    public void settle(float releaseVelocity, float minimumFlingVelocity) {
+        boolean wasChecked = model.isChecked();
+        onTransitionRequested(model.settle(releaseVelocity, minimumFlingVelocity));
+        dispatchCheckedChange(wasChecked);
+    }
+
+    /**
+     * Moves the switch to the given state without animating it, cancelling any transition. No
+     * animation objects are involved and the drawable is invalidated at most once, only if it
+     * wasn't already resting on that state.
+     */
+    public void jumpToState(boolean checked) {
+        if (model.isRestingOn(checked)) return;
+        boolean wasChecked = model.isChecked();
+        stopTransition();
+        model.jumpToState(checked);
+        moveInnerShapeTo(model.getDrawnPosition());
+        dispatchCheckedChange(wasChecked);
+    }
+
+    /**
+     * Animates the switch to the given state, holding it still during the given delay first.
+     */
+    void animateToState(boolean checked, long startDelayNanos) {
+        boolean wasChecked = model.isChecked();
+        onTransitionRequested(model.animateToState(checked, startDelayNanos));
+        dispatchCheckedChange(wasChecked);
+    }
+
+    void setTransitionListener(@Nullable TransitionListener transitionListener) {
+        this.transitionListener = transitionListener;
+    }
+
+    /**
+     * Starts measuring the transitions of the switch, or stops it when null.
+     */
+    void setMetricsListener(@Nullable SwitchMetricsListener listener) {
+        if (metricsTracker != null && metricsTracker.getListener() == listener) return;
+        metricsTracker = listener != null ? new SwitchMetricsTracker(listener) : null;
+    }
+
+    /**
+     * @param framePeriodNanos time between two vsync signals of the display showing the switch.
+     */
+    void setFramePeriodNanos(long framePeriodNanos) {
+        if (metricsTracker != null) {
+            metricsTracker.setFramePeriodNanos(framePeriodNanos);
+        }
+    }
+
+    /**
+     * Registers a touch event handled by the host, so the time until its response is drawn can be
+     * reported to the metrics listener.
+     *
+     * @param eventTimeMillis event time of the touch event, in uptime milliseconds.
+     */
+    void onInputEvent(int action, long eventTimeMillis) {
+        if (metricsTracker != null) {
+            metricsTracker.onInputEvent(action, eventTimeMillis);
+        }
+    }
+
+    /**
+     * Hands the frame scheduling of this drawable over to the given group, or back to its own
+     * frame callback when null.
+     */
+    void setGroup(@Nullable BllocSwitchGroup group) {
+        if (this.group == group) return;
+        boolean wasScheduled = frameScheduled;
+        unscheduleFrame();
+        this.group = group;
+        if (wasScheduled) {
+            scheduleFrame();
+        }
+    }
+
+    /**
+     * Replaces the Choreographer as the source of the frames of this drawable when it doesn't
+     * belong to a group.
+     */
+    void setFrameClock(SwitchFrameClock frameClock) {
+        if (this.frameClock == frameClock) return;
+        boolean wasScheduled = frameScheduled;
+        unscheduleFrame();
+        this.frameClock = frameClock;
+        if (wasScheduled) {
+            scheduleFrame();
+        }
+    }
+
+    /**
+     * Copies where the container and the inner shape are currently drawn, in the same coordinates
+     * as the bounds.
+     */
+    void getShapeBounds(RectF container, RectF innerShape) {
+        container.set(containerRect);
+        innerShape.set(innerShapeRect);
+    }
+
+    /**
+     * @return the color the container is currently drawn with.
+     */
+    @ColorInt
+    int getCurrentContainerColor() {
+        return containerPaint.getColor();
+    }
+
+    /**
+     * @return the render nodes drawing the switch, null when it isn't drawn with them.
+     */
+    @Nullable
+    SwitchRenderNodes getRenderNodes() {
+        return renderNodes;
+    }
+
+    /**
+     * Applies the pending drag movement and advances the running transition, invalidating the
+     * drawable at most once and scheduling another frame if the transition is not over.
+     */
+    void doFrame(long frameTimeNanos) {
+        frameScheduled = false;
+        if (metricsTracker != null) {
+            metricsTracker.onFrame(frameTimeNanos);
+        }
+        boolean wasAnimating = model.isAnimating();
+        if (model.doFrame(frameTimeNanos)) {
+            moveInnerShapeTo(model.getDrawnPosition());
+        }
+        if (model.needsFrame()) {
+            scheduleFrame();
+        } else if (wasAnimating) {
+            onTransitionEnded(false);
+        }
+    }
+
+    @Override
+    public void draw(@NonNull Canvas canvas) {
+        if (metricsTracker != null) {
+            metricsTracker.onDraw(SystemClock.uptimeMillis());
+        }
+        if (frameAtlas != null) {
+            frameAtlas.draw(canvas, geometry, innerShapeRect.left, containerRect, atlasFrameSrc, atlasFrameDst, atlasPaint);
+            return;
+        }
+        if (renderNodes != null) {
+            if (canvas.isHardwareAccelerated()) {
+                renderNodes.draw(canvas, containerRect, containerRoundedCornerRadius, containerPaint, containerColor,
+                        innerShapeRect, geometry.getFullInnerCircleDiameter(), MIN_INNER_SHAPE_WIDTH, innerShapePaint);
+                return;
+            }
+            renderNodes.onDrawnWithoutNodes();
+        }
+        canvas.drawRoundRect(containerRect, containerRoundedCornerRadius, containerRoundedCornerRadius, containerPaint);
+        canvas.drawArc(innerShapeRect, 0, 360, true, innerShapePaint);
+    }
+
+    @Override
+    protected void onBoundsChange(Rect bounds) {
+        super.onBoundsChange(bounds);
+        SwitchDimensions layout = layoutDimensions;
+        if (bounds.width() != layoutBoundsWidth || bounds.height() != layoutBoundsHeight) {
+            layout = dimensions.scaledToFit(bounds.width(), bounds.height());
+            layoutBoundsWidth = bounds.width();
+            layoutBoundsHeight = bounds.height();
+        }
+        boolean resized = layout != layoutDimensions;
+        layoutDimensions = layout;
+        float padding = layout.padding;
+        containerRect.right = bounds.right;
+        containerRect.left = containerRect.right - layout.width;
+        float verticalCenter = bounds.exactCenterY();
+        containerRect.top = Math.round(verticalCenter - layout.height / 2f);
+        containerRect.bottom = containerRect.top + layout.height;
+        containerRoundedCornerRadius = containerRect.height() / 2;
+        innerShapeRect.top = containerRect.top + padding;
+        innerShapeRect.bottom = containerRect.bottom - padding;
+        innerShapePaint.setStrokeWidth(layout.strokeWidth);
+        // As we never modify the height of the inner shape rect, we can always use its height
+        // as the diameter of the circle when it is completely expanded.
+        geometry.update(containerRect.left, containerRect.right, padding, innerShapeRect.height());
+        updateFrameAtlas();
+        if (renderNodes != null) {
+            renderNodes.invalidateContainer();
+            // The inner shape is recorded at the origin of its node, so it only changes with its size
+            if (resized) {
+                renderNodes.invalidateInnerShape();
+            }
+        }
+        // Any transition in progress was computed for the previous bounds
+        stopTransition();
+        // Decide depending on the switch status whether to draw the full circle (ON) or the straight line (OFF)
+        model.jumpToState(model.isChecked());
+        moveInnerShapeTo(model.getDrawnPosition());
+    }
+
+    /**
+     * While a transition is running only the inner shape moves, so when the container color
+     * doesn't change the region to redraw is limited to the old and new inner shape bounds.
+     */
+    @NonNull
+    @Override
+    public Rect getDirtyBounds() {
+        return dirtyBounds.isEmpty() ? getBounds() : dirtyBounds;
+    }
+
+    @Override
+    public void jumpToCurrentState() {
+        jumpToState(model.isChecked());
+    }
+
+    @Override
+    public int getIntrinsicWidth() {
+        return dimensions.width;
+    }
+
+    @Override
+    public int getIntrinsicHeight() {
+        return dimensions.height;
+    }
+
+    @Override
+    public void setAlpha(int alpha) {
+        this.alpha = alpha;
+        innerShapePaint.setAlpha(alpha);
+        atlasPaint.setAlpha(alpha);
+        if (renderNodes != null) {
+            renderNodes.invalidateInnerShape();
+        }
+        moveInnerShapeTo(model.getDrawnPosition());
+    }
+
+    @Override
+    public int getAlpha() {
+        return alpha;
+    }
+
+    @Override
+    public void setColorFilter(@Nullable ColorFilter colorFilter) {
+        innerShapePaint.setColorFilter(colorFilter);
+        containerPaint.setColorFilter(colorFilter);
+        atlasPaint.setColorFilter(colorFilter);
+        if (renderNodes != null) {
+            renderNodes.invalidateContainer();
+            renderNodes.invalidateInnerShape();
+        }
+        invalidateSelf();
+    }
+
+    @Override
+    public int getOpacity() {
+        return PixelFormat.TRANSLUCENT;
+    }
+
+    private static Paint createInnerShapePaint() {
+        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        paint.setStyle(Paint.Style.STROKE);
+        paint.setColor(Color.WHITE);
+        paint.setStrokeWidth(4);
+        return paint;
+    }
+
+    private static Paint createContainerPaint() {
+        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        paint.setStyle(Paint.Style.FILL);
+        return paint;
+    }
+
+    static void checkRenderMode(int renderMode) {
+        if (renderMode != RENDER_MODE_VECTOR && renderMode != RENDER_MODE_ATLAS && renderMode != RENDER_MODE_RENDER_NODE) {
+            throw new IllegalArgumentException("Unknown render mode: " + renderMode);
+        }
+    }
+
+    private void updateFrameAtlas() {
+        if (renderMode == RENDER_MODE_ATLAS && !containerRect.isEmpty()) {
+            frameAtlas = SwitchFrameAtlas.obtain(geometry, containerRect, layoutDimensions.padding, containerColor, innerShapePaint);
+        } else {
+            frameAtlas = null;
+        }
+    }
+
+    private void updateRenderNodes() {
+        if (renderMode == RENDER_MODE_RENDER_NODE && Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            if (renderNodes == null) {
+                renderNodes = new SwitchRenderNodes();
+            }
+        } else {
+            renderNodes = null;
+        }
+    }
+
+    private void onTransitionRequested(boolean started) {
+        scheduleFrame();
+        if (!started) return;
+        if (metricsTracker != null) {
+            metricsTracker.onTransitionStart(SystemClock.uptimeMillis());
+        }
+        if (transitionListener != null) {
+            transitionListener.onTransitionStart();
+        }
+    }
+
+    private void dispatchCheckedChange(boolean wasChecked) {
+        boolean checked = model.isChecked();
+        if (checked != wasChecked && onCheckedChangeListener != null) {
+            onCheckedChangeListener.onCheckedChanged(this, checked);
+        }
+    }
+
+    private void onTransitionEnded(boolean cancelled) {
+        if (metricsTracker != null) {
+            metricsTracker.onTransitionEnd(cancelled, SystemClock.uptimeMillis());
+        }
+        if (transitionListener != null) {
+            transitionListener.onTransitionEnd(cancelled);
+        }
+    }
+
+    private void moveInnerShapeTo(float left) {
+        dirtyRect.set(innerShapeRect);
+        innerShapeRect.left = left;
+        innerShapeRect.right = left + geometry.widthForPosition(left);
+        int color = geometry.colorForPosition(left);
+        if (alpha != 0xFF) {
+            color = (((color >>> 24) * alpha / 0xFF) << 24) | (color & 0x00FFFFFF);
+        }
+        if (renderNodes != null && renderNodes.canUpdateWithoutDrawing()) {
+            containerPaint.setColor(color);
+            renderNodes.update(containerPaint, containerColor, innerShapeRect);
+            invalidateRenderNodes();
+            return;
+        }
+        if (color == containerPaint.getColor()) {
+            // Only the inner shape changed, cover its previous and current bounds including the
+            // stroke (and the anti-aliasing pixels around it)
+            float strokeWidth = innerShapePaint.getStrokeWidth();
+            dirtyRect.union(innerShapeRect);
+            dirtyRect.inset(-strokeWidth, -strokeWidth);
+            dirtyRect.roundOut(dirtyBounds);
+        } else {
+            containerPaint.setColor(color);
+        }
+        invalidateSelf();
+        dirtyBounds.setEmpty();
+    }
+
+    /**
+     * Asks the view drawing this drawable for a frame that picks up the properties of the render
+     * nodes, without drawing it again.
+     */
+    private void invalidateRenderNodes() {
+        Callback callback = getCallback();
+        if (callback instanceof View) {
+            // Unlike invalidate(), only damages the view in its parent, keeping its display list
+            ((View) callback).invalidateOutline();
+        } else {
+            invalidateSelf();
+        }
+    }
+
+    private void scheduleFrame() {
+        if (frameScheduled) return;
+        frameScheduled = true;
+        if (group != null) {
+            group.scheduleFrame(this);
+        } else {
+            frameClock.postFrameCallback(frameCallback);
+        }
+    }
+
+    private void unscheduleFrame() {
+        if (!frameScheduled) return;
+        frameScheduled = false;
+        if (group != null) {
+            group.unscheduleFrame(this);
+        } else {
+            frameClock.removeFrameCallback(frameCallback);
+        }
+    }
+
+    public interface OnCheckedChangeListener {
+
+        void onCheckedChanged(@NonNull BllocSwitchDrawable drawable, boolean isChecked);
+
+    }
+
+    /**
+     * Notified when the switch starts animating towards a state and when it stops.
+     */
+    interface TransitionListener {
+
+        void onTransitionStart();
+
+        /**
+         * @param cancelled true if the transition was stopped before reaching its final state.
+         */
+        void onTransitionEnd(boolean cancelled);
+
+    }
+
+    private class SwitchFrameCallback implements Choreographer.FrameCallback {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            BllocSwitchDrawable.this.doFrame(frameTimeNanos);
+        }
+    }
+
+}
@@ -0,0 +1,126 @@
+package me.juangoncalves.switchview;
+
+import android.view.Choreographer;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+
+/**
+ * Coordinates a set of switches that are usually toggled together, e.g. behind an "enable all"
+ * action.
+ * <p>
+ * Instead of every switch registering its own frame callback, the members of a group are driven by
+ * a single frame callback that advances all the running transitions in one pass, and
+ * invalidates every switch at most once per frame. Bulk changes can be staggered so the switches
+ * start moving one after the other.
+ */
+public class BllocSwitchGroup {
+
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+
+    private final ArrayList<BllocSwitchDrawable> members = new ArrayList<>();
+    private final Choreographer.FrameCallback frameCallback = new GroupFrameCallback();
+    private SwitchFrameClock frameClock = SwitchFrameClock.CHOREOGRAPHER;
+    // Drawables waiting for the next frame, and the ones being processed in the current frame.
+    // They are swapped on every frame, so drawables can schedule themselves again while the
+    // current frame is being processed without allocating.
+    private ArrayList<BllocSwitchDrawable> scheduled = new ArrayList<>();
+    private ArrayList<BllocSwitchDrawable> processing = new ArrayList<>();
+    private boolean frameScheduled;
+    private long staggerDelayNanos;
+
+    public void add(@NonNull BllocSwitchView view) {
+        add(view.getSwitchDrawable());
+    }
+
+    public void add(@NonNull BllocSwitchDrawable drawable) {
+        if (members.contains(drawable)) return;
+        members.add(drawable);
+        drawable.setGroup(this);
+    }
+
+    public void remove(@NonNull BllocSwitchView view) {
+        remove(view.getSwitchDrawable());
+    }
+
+    public void remove(@NonNull BllocSwitchDrawable drawable) {
+        if (members.remove(drawable)) {
+            drawable.setGroup(null);
+        }
+    }
+
+    public int size() {
+        return members.size();
+    }
+
+    /**
+     * @param delayMillis time between the start of the transitions of consecutive members when
+     *                    changing their state through {@link #setCheckedAll(boolean, boolean)}.
+     */
+    public void setStaggerDelay(long delayMillis) {
+        staggerDelayNanos = delayMillis * NANOS_PER_MILLI;
+    }
+
+    /**
+     * Changes the state of every member of the group, in the order they were added.
+     *
+     * @param animate false to move the switches straight to the final state.
+     */
+    public void setCheckedAll(boolean checked, boolean animate) {
+        long startDelay = 0L;
+        for (int i = 0, size = members.size(); i < size; i++) {
+            BllocSwitchDrawable drawable = members.get(i);
+            if (!animate) {
+                drawable.jumpToState(checked);
+            } else if (drawable.isChecked() != checked) {
+                drawable.animateToState(checked, startDelay);
+                startDelay += staggerDelayNanos;
+            }
+        }
+    }
+
+    /**
+     * Replaces the Choreographer as the source of the frames of the members of this group.
+     */
+    void setFrameClock(SwitchFrameClock frameClock) {
+        if (this.frameClock == frameClock) return;
+        if (frameScheduled) {
+            this.frameClock.removeFrameCallback(frameCallback);
+            frameClock.postFrameCallback(frameCallback);
+        }
+        this.frameClock = frameClock;
+    }
+
+    void scheduleFrame(BllocSwitchDrawable drawable) {
+        scheduled.add(drawable);
+        if (!frameScheduled) {
+            frameScheduled = true;
+            frameClock.postFrameCallback(frameCallback);
+        }
+    }
+
+    void unscheduleFrame(BllocSwitchDrawable drawable) {
+        scheduled.remove(drawable);
+        if (frameScheduled && scheduled.isEmpty()) {
+            frameScheduled = false;
+            frameClock.removeFrameCallback(frameCallback);
+        }
+    }
+
+    private class GroupFrameCallback implements Choreographer.FrameCallback {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            frameScheduled = false;
+            ArrayList<BllocSwitchDrawable> current = scheduled;
+            scheduled = processing;
+            processing = current;
+            for (int i = 0, size = current.size(); i < size; i++) {
+                // Drawables that need another frame schedule themselves again
+                current.get(i).doFrame(frameTimeNanos);
+            }
+            current.clear();
+        }
+    }
+
+}
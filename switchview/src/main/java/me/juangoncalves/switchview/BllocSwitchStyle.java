@@ -0,0 +1,248 @@
+package me.juangoncalves.switchview;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.util.AttributeSet;
+import android.view.ViewConfiguration;
+
+import androidx.annotation.ColorInt;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * The configuration of a {@link BllocSwitchView}, resolved once (from attributes or a
+ * {@link Builder}) and shared by any number of switches built with
+ * {@link BllocSwitchView#BllocSwitchView(Context, BllocSwitchStyle)}.
+ * <p>
+ * Creating a switch from a style doesn't read any attribute or resource, and as a style is
+ * immutable it can be shared with switches created on other threads, e.g. by an
+ * {@code AsyncLayoutInflater} or a pool filled in the background.
+ */
+public final class BllocSwitchStyle {
+
+    @ColorInt
+    final int containerColor;
+    final boolean checked;
+    final SwitchDimensions dimensions;
+    final float stiffness;
+    final float dampingRatio;
+    final boolean hardwareLayerDuringTransition;
+    final int renderMode;
+    final boolean predictDrag;
+    final int touchSlop;
+    final int minimumFlingVelocity;
+
+    private BllocSwitchStyle(Builder builder) {
+        containerColor = builder.containerColor;
+        checked = builder.checked;
+        dimensions = builder.dimensions;
+        stiffness = builder.stiffness;
+        dampingRatio = builder.dampingRatio;
+        hardwareLayerDuringTransition = builder.hardwareLayerDuringTransition;
+        renderMode = builder.renderMode;
+        predictDrag = builder.predictDrag;
+        touchSlop = builder.touchSlop;
+        minimumFlingVelocity = builder.minimumFlingVelocity;
+    }
+
+    /**
+     * Resolves the style of a switch declared in a layout, falling back to the default values for
+     * the missing attributes.
+     */
+    @NonNull
+    public static BllocSwitchStyle fromAttributes(@NonNull Context context, @Nullable AttributeSet attrs) {
+        Builder builder = new Builder(context);
+        if (attrs == null) return builder.build();
+        TypedArray ta = context.obtainStyledAttributes(attrs, R.styleable.BllocSwitchView);
+        try {
+            SwitchDimensions dimensions = builder.dimensions;
+            return builder
+                    .setDimensions(
+                            ta.getDimension(R.styleable.BllocSwitchView_sv_switchWidth, dimensions.width),
+                            ta.getDimension(R.styleable.BllocSwitchView_sv_switchHeight, dimensions.height),
+                            ta.getDimension(R.styleable.BllocSwitchView_sv_innerPadding, dimensions.padding),
+                            ta.getDimension(R.styleable.BllocSwitchView_sv_strokeWidth, dimensions.strokeWidth)
+                    )
+                    .setChecked(ta.getBoolean(R.styleable.BllocSwitchView_sv_checked, builder.checked))
+                    .setContainerColor(ta.getColor(R.styleable.BllocSwitchView_sv_backgroundColor, builder.containerColor))
+                    .setSpring(
+                            ta.getFloat(R.styleable.BllocSwitchView_sv_stiffness, builder.stiffness),
+                            ta.getFloat(R.styleable.BllocSwitchView_sv_dampingRatio, builder.dampingRatio)
+                    )
+                    .setHardwareLayerDuringTransition(ta.getBoolean(R.styleable.BllocSwitchView_sv_hardwareLayerDuringTransition, builder.hardwareLayerDuringTransition))
+                    .setRenderMode(ta.getInt(R.styleable.BllocSwitchView_sv_renderMode, builder.renderMode))
+                    .setDragPrediction(ta.getBoolean(R.styleable.BllocSwitchView_sv_predictDrag, builder.predictDrag))
+                    .build();
+        } finally {
+            ta.recycle();
+        }
+    }
+
+    @ColorInt
+    public int getContainerColor() {
+        return containerColor;
+    }
+
+    /**
+     * @return the initial state of the switches.
+     */
+    public boolean isChecked() {
+        return checked;
+    }
+
+    /**
+     * @return width of the container in pixels.
+     */
+    public int getWidth() {
+        return dimensions.width;
+    }
+
+    /**
+     * @return height of the container in pixels.
+     */
+    public int getHeight() {
+        return dimensions.height;
+    }
+
+    public float getPadding() {
+        return dimensions.padding;
+    }
+
+    public float getStrokeWidth() {
+        return dimensions.strokeWidth;
+    }
+
+    public float getStiffness() {
+        return stiffness;
+    }
+
+    public float getDampingRatio() {
+        return dampingRatio;
+    }
+
+    public boolean isHardwareLayerDuringTransition() {
+        return hardwareLayerDuringTransition;
+    }
+
+    public int getRenderMode() {
+        return renderMode;
+    }
+
+    public boolean isDragPrediction() {
+        return predictDrag;
+    }
+
+    /**
+     * @return a builder starting from the values of this style.
+     */
+    @NonNull
+    public Builder buildUpon() {
+        return new Builder(this);
+    }
+
+    public static final class Builder {
+
+        @ColorInt
+        private int containerColor;
+        private boolean checked = true;
+        private SwitchDimensions dimensions;
+        private float stiffness = SwitchAnimator.DEFAULT_STIFFNESS;
+        private float dampingRatio = SwitchAnimator.DEFAULT_DAMPING_RATIO;
+        private boolean hardwareLayerDuringTransition;
+        private int renderMode = BllocSwitchDrawable.RENDER_MODE_RENDER_NODE;
+        private boolean predictDrag;
+        private int touchSlop;
+        private int minimumFlingVelocity;
+
+        /**
+         * @param context used to resolve the default color and the touch thresholds of the display.
+         */
+        public Builder(@NonNull Context context) {
+            containerColor = context.getResources().getColor(R.color.switch_view_background_on);
+            dimensions = SwitchDimensions.forDensity(context.getResources().getDisplayMetrics().density);
+            ViewConfiguration viewConfiguration = ViewConfiguration.get(context);
+            touchSlop = viewConfiguration.getScaledTouchSlop();
+            minimumFlingVelocity = viewConfiguration.getScaledMinimumFlingVelocity();
+        }
+
+        private Builder(BllocSwitchStyle style) {
+            containerColor = style.containerColor;
+            checked = style.checked;
+            dimensions = style.dimensions;
+            stiffness = style.stiffness;
+            dampingRatio = style.dampingRatio;
+            hardwareLayerDuringTransition = style.hardwareLayerDuringTransition;
+            renderMode = style.renderMode;
+            predictDrag = style.predictDrag;
+            touchSlop = style.touchSlop;
+            minimumFlingVelocity = style.minimumFlingVelocity;
+        }
+
+        @NonNull
+        public Builder setContainerColor(@ColorInt int containerColor) {
+            this.containerColor = containerColor;
+            return this;
+        }
+
+        @NonNull
+        public Builder setChecked(boolean checked) {
+            this.checked = checked;
+            return this;
+        }
+
+        /**
+         * @see BllocSwitchDrawable#setDimensions(float, float, float, float)
+         */
+        @NonNull
+        public Builder setDimensions(float width, float height, float padding, float strokeWidth) {
+            this.dimensions = SwitchDimensions.obtain(width, height, padding, strokeWidth);
+            return this;
+        }
+
+        /**
+         * @see BllocSwitchView#setSpring(float, float)
+         */
+        @NonNull
+        public Builder setSpring(float stiffness, float dampingRatio) {
+            SwitchAnimator.checkSpring(stiffness, dampingRatio);
+            this.stiffness = stiffness;
+            this.dampingRatio = dampingRatio;
+            return this;
+        }
+
+        /**
+         * @see BllocSwitchView#setHardwareLayerDuringTransition(boolean)
+         */
+        @NonNull
+        public Builder setHardwareLayerDuringTransition(boolean enabled) {
+            this.hardwareLayerDuringTransition = enabled;
+            return this;
+        }
+
+        /**
+         * @see BllocSwitchView#setRenderMode(int)
+         */
+        @NonNull
+        public Builder setRenderMode(int renderMode) {
+            BllocSwitchDrawable.checkRenderMode(renderMode);
+            this.renderMode = renderMode;
+            return this;
+        }
+
+        /**
+         * @see BllocSwitchView#setDragPrediction(boolean)
+         */
+        @NonNull
+        public Builder setDragPrediction(boolean enabled) {
+            this.predictDrag = enabled;
+            return this;
+        }
+
+        @NonNull
+        public BllocSwitchStyle build() {
+            return new BllocSwitchStyle(this);
+        }
+
+    }
+
+}
@@ -1,202 +1,386 @@
 package me.juangoncalves.switchview;
 
-import android.animation.AnimatorSet;
-import android.animation.ValueAnimator;
 import android.content.Context;
-import android.content.res.TypedArray;
 import android.graphics.Canvas;
-import android.graphics.Color;
-import android.graphics.Paint;
-import android.graphics.RectF;
+import android.graphics.drawable.Drawable;
 import android.os.Parcel;
 import android.os.Parcelable;
 import android.util.AttributeSet;
+import android.view.Display;
 import android.view.MotionEvent;
 import android.view.View;
-import android.view.animation.AccelerateDecelerateInterpolator;
 
-import androidx.annotation.ColorInt;
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import androidx.core.graphics.ColorUtils;
-import androidx.core.math.MathUtils;
 
 import static android.view.MotionEvent.INVALID_POINTER_ID;
 
 public class BllocSwitchView extends View {
 
-    private static final long ANIMATION_DURATION = 330L;
     private static final long MAX_CLICK_DURATION = 200L;
-    private static final long MAX_CLICK_DISTANCE = 15;
-    private static final int ACTUAL_WIDTH = 140;
-    private static final int ACTUAL_HEIGHT = 70;
-    private static final float MIN_INNER_SHAPE_WIDTH = 1f;
-    private static final float PADDING = 21;
-    private static final int MIN_OPACITY = 80;
-
-    @ColorInt
-    private int containerColor;
-    private boolean checked;
-    private float containerRoundedCornerRadius;
-    private RectF containerRect = new RectF();
-    private RectF innerShapeRect = new RectF();
-    private Paint innerShapePaint = new Paint();
-    private Paint containerPaint = new Paint();
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+
+    private final BllocSwitchDrawable drawable;
+    private final DragTracker dragTracker = new DragTracker();
+    private final GestureClassifier gestureClassifier;
 
     // The ‘active pointer’ is the one currently moving our object.
-    private AnimatorSet currentAnimation = null;
     private int activePointerId = INVALID_POINTER_ID;
-    private float lastTouchX;
-    private long clickStartTime;
+    private final int minimumFlingVelocity;
+    private boolean hardwareLayerDuringTransition;
+    private boolean transitionLayerApplied;
+    private boolean metricsEnabled;
+    @Nullable
+    private MotionPredictor motionPredictor;
+    private long framePeriodNanos = SwitchMetricsTracker.DEFAULT_FRAME_PERIOD_NANOS;
+    @Nullable
+    private OnCheckedChangeListener onCheckedChangeListener;
+    @Nullable
+    private SwitchBinding binding;
+
+    public BllocSwitchView(Context context) {
+        this(context, null, new BllocSwitchStyle.Builder(context).build());
+    }
 
     public BllocSwitchView(Context context, @Nullable AttributeSet attrs) {
+        this(context, attrs, BllocSwitchStyle.fromAttributes(context, attrs));
+    }
+
+    /**
+     * Creates a switch from a style resolved beforehand, without reading any attribute or
+     * resource. It can be called from a background thread.
+     */
+    public BllocSwitchView(Context context, @NonNull BllocSwitchStyle style) {
+        this(context, null, style);
+    }
+
+    private BllocSwitchView(Context context, @Nullable AttributeSet attrs, BllocSwitchStyle style) {
         super(context, attrs);
         setSaveEnabled(true);
-        TypedArray ta = context.obtainStyledAttributes(attrs, R.styleable.BllocSwitchView);
-        checked = ta.getBoolean(R.styleable.BllocSwitchView_sv_checked, true);
-        containerColor = ta.getColor(
-                R.styleable.BllocSwitchView_sv_backgroundColor,
-                getResources().getColor(R.color.switch_view_background_on)
-        );
-        ta.recycle();
-        updateInnerShapePaint();
+        hardwareLayerDuringTransition = style.hardwareLayerDuringTransition;
+        drawable = new BllocSwitchDrawable(style.containerColor, style.checked, style.dimensions);
+        drawable.setSpring(style.stiffness, style.dampingRatio);
+        drawable.setRenderMode(style.renderMode);
+        drawable.setCallback(this);
+        drawable.setTransitionListener(new LayerTransitionListener());
+        drawable.setOnCheckedChangeListener(new BllocSwitchDrawable.OnCheckedChangeListener() {
+            @Override
+            public void onCheckedChanged(@NonNull BllocSwitchDrawable drawable, boolean isChecked) {
+                if (binding != null) {
+                    binding.onCheckedChanged(isChecked);
+                }
+                if (onCheckedChangeListener != null) {
+                    onCheckedChangeListener.onCheckedChanged(BllocSwitchView.this, isChecked);
+                }
+            }
+        });
+        setDragPrediction(style.predictDrag);
+        minimumFlingVelocity = style.minimumFlingVelocity;
+        gestureClassifier = new GestureClassifier(style.touchSlop, MAX_CLICK_DURATION);
     }
 
     public boolean isChecked() {
-        return checked;
+        return drawable.isChecked();
     }
 
     public void setChecked(boolean checked) {
-        if (this.checked != checked) {
-            toggle();
+        drawable.setChecked(checked);
+    }
+
+    /**
+     * @param animate false to move the switch straight to the final state, e.g. when binding a
+     *                recycled row.
+     */
+    public void setChecked(boolean checked, boolean animate) {
+        drawable.setChecked(checked, animate);
+    }
+
+    /**
+     * @param listener notified when the state changes, either from the user or programmatically, as
+     *                 soon as the switch starts moving to it.
+     */
+    public void setOnCheckedChangeListener(@Nullable OnCheckedChangeListener listener) {
+        onCheckedChangeListener = listener;
+    }
+
+    @Nullable
+    OnCheckedChangeListener getOnCheckedChangeListener() {
+        return onCheckedChangeListener;
+    }
+
+    /**
+     * @see SwitchBinding
+     */
+    void setBinding(@Nullable SwitchBinding binding) {
+        this.binding = binding;
+    }
+
+    @Nullable
+    SwitchBinding getBinding() {
+        return binding;
+    }
+
+    /**
+     * Moves the switch to the given state without animating it, cancelling any transition.
+     */
+    public void jumpToState(boolean checked) {
+        drawable.jumpToState(checked);
+    }
+
+    /**
+     * Sets the size of the switch, used when measuring the view. When the view is laid out with a
+     * different size, the switch is scaled keeping its proportions to fit in it (without its
+     * padding).
+     *
+     * @see BllocSwitchDrawable#setDimensions(float, float, float, float)
+     */
+    public void setDimensions(float width, float height, float padding, float strokeWidth) {
+        drawable.setDimensions(width, height, padding, strokeWidth);
+        requestLayout();
+    }
+
+    /**
+     * Configures the spring that moves the switch between its states.
+     *
+     * @param stiffness    higher values make the switch settle faster.
+     * @param dampingRatio 1 settles without bouncing, lower (but positive) values make the switch
+     *                     bounce.
+     */
+    public void setSpring(float stiffness, float dampingRatio) {
+        drawable.setSpring(stiffness, dampingRatio);
+    }
+
+    /**
+     * When enabled, the view is rendered into a hardware layer while it animates between states
+     * and goes back to its previous layer type afterwards. Useful when many switches sit inside a
+     * complex parent, as every frame of the transition is then composited from the layer.
+     */
+    public void setHardwareLayerDuringTransition(boolean enabled) {
+        hardwareLayerDuringTransition = enabled;
+        if (!enabled) {
+            removeTransitionLayer();
         }
     }
 
-    public void toggle() {
-        if (checked) {
-            currentAnimation = shrinkAndMoveToEnd();
-        } else {
-            currentAnimation = expandAndMoveToStart();
+    /**
+     * @param renderMode either {@link BllocSwitchDrawable#RENDER_MODE_RENDER_NODE} (default),
+     *                   {@link BllocSwitchDrawable#RENDER_MODE_VECTOR} or
+     *                   {@link BllocSwitchDrawable#RENDER_MODE_ATLAS}.
+     */
+    public void setRenderMode(int renderMode) {
+        drawable.setRenderMode(renderMode);
+    }
+
+    /**
+     * When enabled, the inner shape is drawn where the finger is expected to be when the frame is
+     * displayed, extrapolated from the recent touch events, instead of trailing behind it during a
+     * drag.
+     */
+    public void setDragPrediction(boolean enabled) {
+        if (enabled == (motionPredictor != null)) return;
+        motionPredictor = enabled ? new MotionPredictor() : null;
+        if (!enabled) {
+            drawable.setDragPrediction(0f);
         }
-        currentAnimation.start();
-        checked = !checked;
+    }
+
+    /**
+     * Reports the frames of every transition and the time it takes to respond to touch events to
+     * the given listener, e.g. a {@link SwitchMetricsRecorder}. Nothing is measured while no
+     * listener is set.
+     */
+    public void setMetricsListener(@Nullable SwitchMetricsListener listener) {
+        metricsEnabled = listener != null;
+        drawable.setMetricsListener(listener);
+        updateFramePeriod();
+    }
+
+    public void toggle() {
+        drawable.toggle();
+    }
+
+    BllocSwitchDrawable getSwitchDrawable() {
+        return drawable;
     }
 
     @Override
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
-        canvas.drawRoundRect(containerRect, containerRoundedCornerRadius, containerRoundedCornerRadius, containerPaint);
-        canvas.drawArc(innerShapeRect, 0, 360, true, innerShapePaint);
+        drawable.draw(canvas);
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        updateFramePeriod();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        if (binding != null) {
+            binding.onDetachedFromWindow();
+        }
+    }
+
+    @Override
+    protected boolean verifyDrawable(@NonNull Drawable who) {
+        return who == drawable || super.verifyDrawable(who);
+    }
+
+    @Override
+    public void jumpDrawablesToCurrentState() {
+        super.jumpDrawablesToCurrentState();
+        drawable.jumpToCurrentState();
     }
 
     @Override
     public boolean onTouchEvent(MotionEvent ev) {
-        final int action = ev.getActionMasked();
-        switch (action) {
-            case MotionEvent.ACTION_DOWN: {
-                int pointerIndex = ev.getActionIndex();
-                // Track the time to determine if it's a simple click or a drag action
-                clickStartTime = System.currentTimeMillis();
-                // Remember where we started (for dragging)
-                lastTouchX = ev.getX(pointerIndex);
-                // Save the ID of this pointer (for dragging)
-                activePointerId = ev.getPointerId(0);
-                // As we are either toggling the button or starting a drag action, the current
-                // animation should be cancelled
-                if (currentAnimation != null) {
-                    currentAnimation.cancel();
-                }
+        switch (ev.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                onDown(ev);
                 break;
-            }
-
-            case MotionEvent.ACTION_MOVE: {
-                int pointerIndex = ev.findPointerIndex(activePointerId);
-                float x = ev.getX(pointerIndex);
-                float xDiff = x - lastTouchX;
-                float nextLeftPos = MathUtils.clamp(
-                        innerShapeRect.left + xDiff,
-                        getMinLeftCoordinateForInnerShape(),
-                        getMaxRightCoordinateForInnerShape()
-                );
-                innerShapeRect.left = nextLeftPos;
-                innerShapeRect.right = nextLeftPos + calculateInnerShapeWidthForPosition(nextLeftPos);
-                containerPaint.setColor(calculateContainerColorOpacityForPosition(nextLeftPos));
-                invalidate();
-                // Remember this touch position for the next move event
-                lastTouchX = x;
+            case MotionEvent.ACTION_MOVE:
+                onMove(ev);
                 break;
-            }
-
-            case MotionEvent.ACTION_UP: {
-                activePointerId = INVALID_POINTER_ID;
-                long actionDuration = System.currentTimeMillis() - clickStartTime;
-                if (actionDuration <= MAX_CLICK_DURATION && horizontalDistanceInDp(lastTouchX, ev.getX()) < MAX_CLICK_DISTANCE) {
-                    performClick();
-                } else {
-                    float lastX = innerShapeRect.centerX();
-                    float containerCenter = containerRect.centerX();
-                    if (lastX <= containerCenter) {
-                        checked = true;
-                        currentAnimation = expandAndMoveToStart();
-                    } else {
-                        checked = false;
-                        currentAnimation = shrinkAndMoveToEnd();
-                    }
-                    if (currentAnimation != null) currentAnimation.start();
-                }
+            case MotionEvent.ACTION_POINTER_UP:
+                onPointerUp(ev);
                 break;
-            }
-
-            case MotionEvent.ACTION_CANCEL: {
-                activePointerId = INVALID_POINTER_ID;
+            case MotionEvent.ACTION_UP:
+                onUp(ev);
                 break;
-            }
-
-            case MotionEvent.ACTION_POINTER_UP: {
-                int pointerIndex = ev.getActionIndex();
-                int pointerId = ev.getPointerId(pointerIndex);
-                if (pointerId == activePointerId) {
-                    // This was our active pointer going up. Choose a new
-                    // active pointer and adjust accordingly.
-                    int newPointerIndex = pointerIndex == 0 ? 1 : 0;
-                    lastTouchX = ev.getX(newPointerIndex);
-                    activePointerId = ev.getPointerId(newPointerIndex);
-                }
+            case MotionEvent.ACTION_CANCEL:
+                onCancel();
                 break;
-            }
         }
         return true;
     }
 
-    private float horizontalDistanceInDp(float x1, float x2) {
-        return Math.abs(x1 - x2) / getResources().getDisplayMetrics().density;
+    private void onDown(MotionEvent ev) {
+        float x = ev.getX(0);
+        // Remember where and when we started, to tell apart a click from a drag action
+        gestureClassifier.onDown(x, ev.getEventTime());
+        dragTracker.reset(x, ev.getEventTime());
+        if (motionPredictor != null) {
+            motionPredictor.reset();
+            motionPredictor.addSample(x, ev.getEventTime());
+        }
+        // Save the ID of this pointer (for dragging)
+        activePointerId = ev.getPointerId(0);
+        // As we are either toggling the button or starting a drag action, the current
+        // animation should be cancelled
+        drawable.stopTransition();
+    }
+
+    private void onMove(MotionEvent ev) {
+        // Nothing to follow until the next down event, e.g. after a cancellation
+        if (activePointerId == INVALID_POINTER_ID) return;
+        int pointerIndex = ev.findPointerIndex(activePointerId);
+        if (pointerIndex == -1) {
+            // The active pointer is gone without going up first (e.g. injected events), so the
+            // gesture continues from the first sample of any other pointer
+            pointerIndex = 0;
+            float startX = ev.getHistorySize() > 0 ? ev.getHistoricalX(0, 0) : ev.getX(0);
+            setActivePointer(ev.getPointerId(0), startX, ev.getEventTime());
+        }
+        // Feed every sample batched in this event, the accumulated movement is applied
+        // once on the next frame no matter how many events arrive before it
+        for (int i = 0, historySize = ev.getHistorySize(); i < historySize; i++) {
+            float historicalX = ev.getHistoricalX(pointerIndex, i);
+            dragTracker.addSample(historicalX, ev.getHistoricalEventTime(i));
+            if (motionPredictor != null) {
+                motionPredictor.addSample(historicalX, ev.getHistoricalEventTime(i));
+            }
+        }
+        float x = ev.getX(pointerIndex);
+        dragTracker.addSample(x, ev.getEventTime());
+        if (motionPredictor != null) {
+            motionPredictor.addSample(x, ev.getEventTime());
+        }
+        if (gestureClassifier.onMove(x)) {
+            // From now on the gesture is ours, even inside a scrolling parent
+            if (getParent() != null) {
+                getParent().requestDisallowInterceptTouchEvent(true);
+            }
+            // The first event redrawing the switch, as the down event and the moves within the
+            // touch slop leave it where it was
+            if (metricsEnabled) {
+                drawable.onInputEvent(MotionEvent.ACTION_MOVE, ev.getEventTime());
+            }
+        }
+        if (gestureClassifier.isDragging()) {
+            // Events where only other pointers moved don't need a frame. Otherwise the
+            // movement made within the touch slop is applied too, so the inner shape catches
+            // up with the finger on the first frame of the drag
+            if (dragTracker.hasPendingMovement()) {
+                drawable.dragBy(dragTracker.consumePendingMovement());
+            }
+            if (motionPredictor != null) {
+                // Aim for when the next frame reaches the display
+                long targetTime = ev.getEventTime() + framePeriodNanos / NANOS_PER_MILLI;
+                drawable.setDragPrediction(motionPredictor.predict(targetTime) - x);
+            }
+        }
+    }
+
+    private void onPointerUp(MotionEvent ev) {
+        int pointerIndex = ev.getActionIndex();
+        // Pointers other than the active one don't move the switch
+        if (ev.getPointerId(pointerIndex) != activePointerId) return;
+        // This was our active pointer going up, so another pointer still down takes over (the last
+        // pointer going up is an ACTION_UP instead, so there is at least one). The one with the
+        // highest index other than it is picked, usually the pointer that went down last
+        int newPointerIndex = ev.getPointerCount() - 1;
+        if (newPointerIndex == pointerIndex) {
+            newPointerIndex--;
+        }
+        setActivePointer(ev.getPointerId(newPointerIndex), ev.getX(newPointerIndex), ev.getEventTime());
+    }
+
+    private void onUp(MotionEvent ev) {
+        if (activePointerId == INVALID_POINTER_ID) return;
+        int pointerIndex = ev.findPointerIndex(activePointerId);
+        if (pointerIndex != -1) {
+            dragTracker.addSample(ev.getX(pointerIndex), ev.getEventTime());
+        }
+        activePointerId = INVALID_POINTER_ID;
+        if (metricsEnabled) {
+            drawable.onInputEvent(MotionEvent.ACTION_UP, ev.getEventTime());
+        }
+        float movement = dragTracker.consumePendingMovement();
+        if (gestureClassifier.isTap(ev.getEventTime())) {
+            performClick();
+        } else {
+            drawable.dragBy(movement);
+            drawable.settle(dragTracker.getVelocity(), minimumFlingVelocity);
+        }
     }
 
-    private float calculateInnerShapeWidthForPosition(float leftPoint) {
-        // Modelled as a line (y = mx + b) with the vertical axis being the left coordinate of the
-        // inner shape rectangle and the horizontal axis as the expected width of the inner shape
-        // for that position, such that for Y = rightLimit, the shape's width equals MIN_INNER_SHAPE_WIDTH,
-        // and for Y = leftLimit, the diameter of the full circle.
-        float leftLimit = getMinLeftCoordinateForInnerShape();
-        float rightLimit = getMaxRightCoordinateForInnerShape();
-        float maxInnerWidth = getFullInnerCircleDiameter();
-        float slope = (leftLimit - rightLimit) / (maxInnerWidth - MIN_INNER_SHAPE_WIDTH);
-        float yAxisIntersection = -1 * MIN_INNER_SHAPE_WIDTH * slope + rightLimit;
-        float result = (leftPoint - yAxisIntersection) / slope;
-        return MathUtils.clamp(result, MIN_INNER_SHAPE_WIDTH, maxInnerWidth);
+    private void onCancel() {
+        if (activePointerId == INVALID_POINTER_ID) return;
+        activePointerId = INVALID_POINTER_ID;
+        // The gesture was taken away (e.g. by a scrolling parent), so it must not change the
+        // state of the switch: the inner shape goes back to the state it had before the gesture,
+        // from wherever the finger or the interrupted transition left it
+        dragTracker.consumePendingMovement();
+        if (!drawable.isResting()) {
+            drawable.animateToState(drawable.isChecked(), 0L);
+        }
     }
 
-    private int calculateContainerColorOpacityForPosition(float leftPoint) {
-        // Modelled as a line (y = mx + b) with the vertical axis being the left coordinate of the
-        // inner shape rectangle and the horizontal axis as the expected color opacity of the
-        // container's background for that position, such that for Y = rightLimit, it returns the
-        // minimum opacity, and for Y = leftLimit, full opacity.
-        int fullOpacity = Color.alpha(containerColor);
-        float leftLimit = getMinLeftCoordinateForInnerShape();
-        float rightLimit = getMaxRightCoordinateForInnerShape();
-        float slope = (leftLimit - rightLimit) / (fullOpacity - MIN_OPACITY);
-        float yAxisIntersection = -1 * MIN_OPACITY * slope + rightLimit;
-        float result = (leftPoint - yAxisIntersection) / slope;
-        return ColorUtils.setAlphaComponent(containerColor, (int) result);
+    /**
+     * Continues the gesture with the given pointer from the given position, keeping the
+     * distance already dragged.
+     */
+    private void setActivePointer(int pointerId, float x, long eventTime) {
+        activePointerId = pointerId;
+        dragTracker.rebase(x);
+        gestureClassifier.rebase(x);
+        if (motionPredictor != null) {
+            // The samples of the previous pointer are in a different position
+            motionPredictor.reset();
+            motionPredictor.addSample(x, eventTime);
+        }
     }
 
     @Override
@@ -212,8 +396,8 @@ public class BllocSwitchView extends View {
         int widthSize = MeasureSpec.getSize(widthMeasureSpec);
         int heightMode = MeasureSpec.getMode(heightMeasureSpec);
         int heightSize = MeasureSpec.getSize(heightMeasureSpec);
-        int desiredWidth = ACTUAL_WIDTH + getPaddingStart() + getPaddingEnd();
-        int desiredHeight = ACTUAL_HEIGHT + getPaddingTop() + getPaddingBottom();
+        int desiredWidth = drawable.getIntrinsicWidth() + getPaddingStart() + getPaddingEnd();
+        int desiredHeight = drawable.getIntrinsicHeight() + getPaddingTop() + getPaddingBottom();
         int width;
         switch (widthMode) {
             case MeasureSpec.EXACTLY:
@@ -247,23 +431,7 @@ public class BllocSwitchView extends View {
     @Override
     protected void onSizeChanged(int width, int height, int oldWidth, int oldHeight) {
         super.onSizeChanged(width, height, oldWidth, oldHeight);
-        containerRect.right = width - getPaddingEnd();
-        containerRect.left = containerRect.right - ACTUAL_WIDTH;
-        int verticalCenter = height / 2;
-        containerRect.top = verticalCenter - ACTUAL_HEIGHT / 2;
-        containerRect.bottom = verticalCenter + ACTUAL_HEIGHT / 2;
-        containerRoundedCornerRadius = containerRect.height() / 2;
-        innerShapeRect.top = containerRect.top + PADDING;
-        innerShapeRect.bottom = containerRect.bottom - PADDING;
-        // Decide depending on the switch status whether to draw the full circle (ON) or the straight line (OFF)
-        if (isChecked()) {
-            innerShapeRect.left = getMinLeftCoordinateForInnerShape();
-            innerShapeRect.right = innerShapeRect.left + getFullInnerCircleDiameter();
-        } else {
-            innerShapeRect.right = getMaxRightCoordinateForInnerShape();
-            innerShapeRect.left = innerShapeRect.right - MIN_INNER_SHAPE_WIDTH;
-        }
-        updateContainerPaint();
+        drawable.setBounds(getPaddingStart(), getPaddingTop(), width - getPaddingEnd(), height - getPaddingBottom());
     }
 
     @Nullable
@@ -271,7 +439,7 @@ public class BllocSwitchView extends View {
     protected Parcelable onSaveInstanceState() {
         Parcelable superState = super.onSaveInstanceState();
         SavedState customState = new SavedState(superState);
-        customState.isChecked = checked;
+        customState.isChecked = drawable.isChecked();
         return customState;
     }
 
@@ -279,104 +447,50 @@ public class BllocSwitchView extends View {
     protected void onRestoreInstanceState(Parcelable state) {
         super.onRestoreInstanceState(state);
         SavedState customState = (SavedState) state;
-        checked = customState.isChecked;
-    }
-
-    private float getMaxRightCoordinateForInnerShape() {
-        return containerRect.right - PADDING - getFullInnerCircleDiameter() / 2;
-    }
-
-    private float getFullInnerCircleDiameter() {
-        // As we never modify the height of the inner shape rect, we can always use its height
-        // as the diameter of the circle when it is completely expanded.
-        return innerShapeRect.height();
-    }
-
-    private float getMinLeftCoordinateForInnerShape() {
-        return containerRect.left + PADDING;
+        drawable.jumpToState(customState.isChecked);
     }
 
-    private void updateInnerShapePaint() {
-        innerShapePaint.setStyle(Paint.Style.STROKE);
-        innerShapePaint.setColor(Color.WHITE);
-        innerShapePaint.setStrokeWidth(4);
-        innerShapePaint.setAntiAlias(true);
+    private void updateFramePeriod() {
+        Display display = getDisplay();
+        if (display != null && display.getRefreshRate() > 0) {
+            framePeriodNanos = (long) (1_000_000_000L / display.getRefreshRate());
+        }
+        if (metricsEnabled) {
+            drawable.setFramePeriodNanos(framePeriodNanos);
+        }
     }
 
-    private void updateContainerPaint() {
-        containerPaint.setStyle(Paint.Style.FILL);
-        containerPaint.setColor(calculateContainerColorOpacityForPosition(innerShapeRect.left));
-        containerPaint.setAntiAlias(true);
+    private void removeTransitionLayer() {
+        if (transitionLayerApplied) {
+            transitionLayerApplied = false;
+            setLayerType(LAYER_TYPE_NONE, null);
+        }
     }
 
-    private AnimatorSet expandAndMoveToStart() {
-        ValueAnimator shapeAnimator = ValueAnimator.ofFloat(innerShapeRect.width(), getFullInnerCircleDiameter());
-        shapeAnimator.setDuration(ANIMATION_DURATION);
-        shapeAnimator.setInterpolator(new AccelerateDecelerateInterpolator());
-        shapeAnimator.addUpdateListener(new InnerShapeWidthUpdateListener());
-        ValueAnimator positionAnimator = ValueAnimator.ofFloat(innerShapeRect.left, getMinLeftCoordinateForInnerShape());
-        positionAnimator.setDuration(ANIMATION_DURATION);
-        positionAnimator.setInterpolator(new AccelerateDecelerateInterpolator());
-        positionAnimator.addUpdateListener(new InnerShapePositionUpdateListener());
-        ValueAnimator alphaAnimator = ValueAnimator.ofInt(Color.alpha(containerPaint.getColor()), Color.alpha(containerColor));
-        alphaAnimator.setDuration(ANIMATION_DURATION);
-        alphaAnimator.addUpdateListener(new BackgroundColorUpdateListener());
-        AnimatorSet set = new AnimatorSet();
-        set.playTogether(shapeAnimator, positionAnimator, alphaAnimator);
-        return set;
-    }
+    public interface OnCheckedChangeListener {
 
-    private AnimatorSet shrinkAndMoveToEnd() {
-        ValueAnimator shrinkValueAnimator = ValueAnimator.ofFloat(innerShapeRect.width(), MIN_INNER_SHAPE_WIDTH);
-        shrinkValueAnimator.setDuration(ANIMATION_DURATION);
-        shrinkValueAnimator.setInterpolator(new AccelerateDecelerateInterpolator());
-        shrinkValueAnimator.addUpdateListener(new InnerShapeWidthUpdateListener());
-        ValueAnimator positionAnimator = ValueAnimator.ofFloat(innerShapeRect.left, getMaxRightCoordinateForInnerShape());
-        positionAnimator.setDuration(ANIMATION_DURATION);
-        positionAnimator.setInterpolator(new AccelerateDecelerateInterpolator());
-        positionAnimator.addUpdateListener(new InnerShapePositionUpdateListener());
-        ValueAnimator alphaAnimator = ValueAnimator.ofInt(Color.alpha(containerPaint.getColor()), MIN_OPACITY);
-        alphaAnimator.setDuration(ANIMATION_DURATION);
-        alphaAnimator.addUpdateListener(new BackgroundColorUpdateListener());
-        AnimatorSet set = new AnimatorSet();
-        set.playTogether(shrinkValueAnimator, positionAnimator, alphaAnimator);
-        return set;
-    }
+        void onCheckedChanged(@NonNull BllocSwitchView view, boolean isChecked);
 
-    private class BackgroundColorUpdateListener implements ValueAnimator.AnimatorUpdateListener {
-        @Override
-        public void onAnimationUpdate(ValueAnimator valueAnimator) {
-            int updatedOpacity = (int) valueAnimator.getAnimatedValue();
-            int currentColor = containerPaint.getColor();
-            containerPaint.setColor(ColorUtils.setAlphaComponent(currentColor, updatedOpacity));
-            invalidate();
-        }
     }
 
-    private class InnerShapeWidthUpdateListener implements ValueAnimator.AnimatorUpdateListener {
+    private class LayerTransitionListener implements BllocSwitchDrawable.TransitionListener {
         @Override
-        public void onAnimationUpdate(ValueAnimator valueAnimator) {
-            float updatedWidth = (float) valueAnimator.getAnimatedValue();
-            innerShapeRect.right = innerShapeRect.left + updatedWidth;
-            invalidate();
+        public void onTransitionStart() {
+            // Only take over the layer type if no one else configured it
+            if (hardwareLayerDuringTransition && getLayerType() == LAYER_TYPE_NONE) {
+                transitionLayerApplied = true;
+                setLayerType(LAYER_TYPE_HARDWARE, null);
+            }
         }
-    }
 
-    private class InnerShapePositionUpdateListener implements ValueAnimator.AnimatorUpdateListener {
         @Override
-        public void onAnimationUpdate(ValueAnimator valueAnimator) {
-            float updatedPosition = (float) valueAnimator.getAnimatedValue();
-            float width = innerShapeRect.width();
-            innerShapeRect.left = updatedPosition;
-            innerShapeRect.right = updatedPosition + width;
-            invalidate();
+        public void onTransitionEnd(boolean cancelled) {
+            removeTransitionLayer();
         }
     }
 
     private static class SavedState extends BaseSavedState {
         boolean isChecked;
-        private static final int TRUE = 1;
-        private static final int FALSE = 0;
 
         SavedState(Parcelable superState) {
             super(superState);
@@ -384,13 +498,13 @@ public class BllocSwitchView extends View {
 
         private SavedState(Parcel in) {
             super(in);
-            isChecked = in.readInt() == TRUE;
+            isChecked = SwitchStateCodec.decodeChecked(in.readInt());
         }
 
         @Override
         public void writeToParcel(Parcel out, int flags) {
             super.writeToParcel(out, flags);
-            out.writeInt(isCheckedAsInt());
+            out.writeInt(SwitchStateCodec.encode(isChecked));
         }
 
         public static final Parcelable.Creator<SavedState> CREATOR = new Parcelable.Creator<SavedState>() {
@@ -403,13 +517,6 @@ public class BllocSwitchView extends View {
             }
         };
 
-        private int isCheckedAsInt() {
-            if (isChecked)
-                return TRUE;
-            else
-                return FALSE;
-        }
-
     }
 
 }
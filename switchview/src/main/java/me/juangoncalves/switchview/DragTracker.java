@@ -0,0 +1,91 @@
+package me.juangoncalves.switchview;
+
+/**
+ * Collects the horizontal touch samples of a drag gesture, including the historical ones batched
+ * inside a single move event, so that they can be applied to the switch at most once per frame.
+ * <p>
+ * The movement between consumed frames is accumulated instead of sampled, so no precision is lost
+ * when several events land on the same frame, and the drag velocity is estimated as every sample
+ * comes in.
+ */
+class DragTracker {
+
+    // Time constant (in ms) of the low-pass filter applied to the instant velocity. Small enough to
+    // follow direction changes, large enough to smooth the jitter between consecutive samples.
+    private static final float VELOCITY_TIME_CONSTANT = 40f;
+
+    private float lastX;
+    private long lastEventTime;
+    private float pendingMovement;
+    private float unmeasuredMovement;
+    private float velocity;
+    private boolean hasVelocity;
+
+    /**
+     * Starts tracking a new gesture from the given position.
+     */
+    void reset(float x, long eventTime) {
+        lastX = x;
+        lastEventTime = eventTime;
+        pendingMovement = 0f;
+        unmeasuredMovement = 0f;
+        velocity = 0f;
+        hasVelocity = false;
+    }
+
+    /**
+     * Moves the reference position without registering any movement, e.g. when a different
+     * pointer takes over the gesture.
+     */
+    void rebase(float x) {
+        lastX = x;
+    }
+
+    /**
+     * Adds a touch sample.
+     *
+     * @param eventTime time of the sample in the {@link android.os.SystemClock#uptimeMillis()} base.
+     */
+    void addSample(float x, long eventTime) {
+        float movement = x - lastX;
+        pendingMovement += movement;
+        unmeasuredMovement += movement;
+        lastX = x;
+        long elapsed = eventTime - lastEventTime;
+        if (elapsed <= 0) {
+            // Samples with the same timestamp are merged into the next velocity measurement
+            return;
+        }
+        float instantVelocity = unmeasuredMovement * 1000f / elapsed;
+        if (hasVelocity) {
+            float weight = elapsed / (elapsed + VELOCITY_TIME_CONSTANT);
+            velocity += (instantVelocity - velocity) * weight;
+        } else {
+            velocity = instantVelocity;
+            hasVelocity = true;
+        }
+        unmeasuredMovement = 0f;
+        lastEventTime = eventTime;
+    }
+
+    boolean hasPendingMovement() {
+        return pendingMovement != 0f;
+    }
+
+    /**
+     * @return the horizontal movement accumulated since the last call.
+     */
+    float consumePendingMovement() {
+        float movement = pendingMovement;
+        pendingMovement = 0f;
+        return movement;
+    }
+
+    /**
+     * @return the estimated horizontal velocity in pixels per second.
+     */
+    float getVelocity() {
+        return velocity;
+    }
+
+}
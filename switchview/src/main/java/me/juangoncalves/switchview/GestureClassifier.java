@@ -0,0 +1,72 @@
+package me.juangoncalves.switchview;
+
+/**
+ * Tells apart taps from drags using only the position and time of the touch events, so the
+ * decision doesn't depend on when the events are processed.
+ * <p>
+ * A gesture becomes a drag as soon as the pointer moves further than the touch slop from where it
+ * went down, and stays a drag until the next down event. Anything else released soon enough is a
+ * tap.
+ */
+class GestureClassifier {
+
+    private final float touchSlop;
+    private final long maxTapDuration;
+    private float downX;
+    private float lastX;
+    private long downTime;
+    private boolean dragging;
+
+    /**
+     * @param touchSlop      distance in pixels a pointer can wander before the gesture is a drag.
+     * @param maxTapDuration maximum time in milliseconds between the down and up events of a tap.
+     */
+    GestureClassifier(float touchSlop, long maxTapDuration) {
+        this.touchSlop = touchSlop;
+        this.maxTapDuration = maxTapDuration;
+    }
+
+    /**
+     * Starts classifying a new gesture.
+     *
+     * @param eventTime time of the event in the {@link android.os.SystemClock#uptimeMillis()} base.
+     */
+    void onDown(float x, long eventTime) {
+        downX = x;
+        lastX = x;
+        downTime = eventTime;
+        dragging = false;
+    }
+
+    /**
+     * @return true if the given position turned the gesture into a drag.
+     */
+    boolean onMove(float x) {
+        lastX = x;
+        if (dragging || Math.abs(x - downX) <= touchSlop) return false;
+        dragging = true;
+        return true;
+    }
+
+    /**
+     * Moves the reference position keeping the distance already travelled, e.g. when a different
+     * pointer takes over the gesture.
+     */
+    void rebase(float x) {
+        downX += x - lastX;
+        lastX = x;
+    }
+
+    boolean isDragging() {
+        return dragging;
+    }
+
+    /**
+     * @param upTime time of the up event in the {@link android.os.SystemClock#uptimeMillis()} base.
+     * @return true if the gesture ending at the given time is a tap.
+     */
+    boolean isTap(long upTime) {
+        return !dragging && upTime - downTime <= maxTapDuration;
+    }
+
+}
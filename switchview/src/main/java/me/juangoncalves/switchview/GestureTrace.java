@@ -0,0 +1,348 @@
+package me.juangoncalves.switchview;
+
+import androidx.annotation.NonNull;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * A sequence of touch events received by a switch, with every pointer and every historical sample
+ * batched inside them, so a gesture can be stored and delivered again exactly as it happened.
+ * <p>
+ * Events are read with the same accessors as a {@link android.view.MotionEvent}, indexed by the
+ * position of the event in the trace. Coordinates are relative to the view and event times are in
+ * milliseconds, in the {@link android.os.SystemClock#uptimeMillis()} base when recorded and
+ * relative to the first sample once read from a stream.
+ * <p>
+ * The stream format stores the event times as variable length deltas and the coordinates as
+ * floats, a few bytes per sample. Traces are usually recorded with a
+ * {@link GestureTraceRecorder}.
+ */
+public final class GestureTrace {
+
+    private static final int MAGIC = 0x42534754; // "BSGT"
+    private static final int VERSION = 1;
+    // Limits of a single event, only used to reject corrupted streams
+    private static final int MAX_POINTERS = 32;
+    private static final int MAX_HISTORY_SIZE = 4096;
+
+    private final int viewWidth;
+    private final int viewHeight;
+    private int eventCount;
+    private int[] actions = new int[16];
+    private int[] pointerCounts = new int[16];
+    private int[] historySizes = new int[16];
+    private int[] pointerOffsets = new int[16];
+    private int[] sampleOffsets = new int[16];
+    private int[] coordOffsets = new int[16];
+    private int pointerIdCount;
+    private int[] pointerIds = new int[16];
+    private int sampleCount;
+    private long[] sampleTimes = new long[16];
+    private int coordCount;
+    private float[] xs = new float[16];
+    private float[] ys = new float[16];
+
+    /**
+     * @param viewWidth  width of the view the events were delivered to.
+     * @param viewHeight height of the view the events were delivered to.
+     */
+    public GestureTrace(int viewWidth, int viewHeight) {
+        this.viewWidth = viewWidth;
+        this.viewHeight = viewHeight;
+    }
+
+    public int getViewWidth() {
+        return viewWidth;
+    }
+
+    public int getViewHeight() {
+        return viewHeight;
+    }
+
+    /**
+     * @return number of events in the trace.
+     */
+    public int size() {
+        return eventCount;
+    }
+
+    /**
+     * @return the action of the event, including the index of the pointer it refers to.
+     */
+    public int getAction(int event) {
+        return actions[checkEvent(event)];
+    }
+
+    public int getPointerCount(int event) {
+        return pointerCounts[checkEvent(event)];
+    }
+
+    public int getPointerId(int event, int pointerIndex) {
+        return pointerIds[pointerOffsets[event] + checkPointer(event, pointerIndex)];
+    }
+
+    /**
+     * @return number of samples batched in the event before its current one.
+     */
+    public int getHistorySize(int event) {
+        return historySizes[checkEvent(event)];
+    }
+
+    public long getEventTime(int event) {
+        return getHistoricalEventTime(event, getHistorySize(event));
+    }
+
+    /**
+     * @param pos index of the sample, where the history size is the current sample.
+     */
+    public long getHistoricalEventTime(int event, int pos) {
+        return sampleTimes[sampleOffsets[event] + checkPos(event, pos)];
+    }
+
+    public float getX(int event, int pointerIndex) {
+        return getHistoricalX(event, pointerIndex, getHistorySize(event));
+    }
+
+    public float getY(int event, int pointerIndex) {
+        return getHistoricalY(event, pointerIndex, getHistorySize(event));
+    }
+
+    public float getHistoricalX(int event, int pointerIndex, int pos) {
+        return xs[coordIndex(event, checkPointer(event, pointerIndex), checkPos(event, pos))];
+    }
+
+    public float getHistoricalY(int event, int pointerIndex, int pos) {
+        return ys[coordIndex(event, checkPointer(event, pointerIndex), checkPos(event, pos))];
+    }
+
+    /**
+     * Appends an event without historical samples, e.g. to write a synthetic gesture.
+     *
+     * @param action     action of the event, including the index of the pointer it refers to.
+     * @param pointerIds id of every pointer down during the event.
+     * @param x          horizontal position of every pointer.
+     * @param y          vertical position of every pointer.
+     */
+    public void addEvent(int action, long eventTime, @NonNull int[] pointerIds, @NonNull float[] x, @NonNull float[] y) {
+        if (pointerIds.length == 0 || x.length != pointerIds.length || y.length != pointerIds.length) {
+            throw new IllegalArgumentException("Every pointer needs an id and a position");
+        }
+        int event = appendEvent(action, pointerIds.length, 0);
+        setSampleTime(event, 0, eventTime);
+        for (int i = 0; i < pointerIds.length; i++) {
+            setPointerId(event, i, pointerIds[i]);
+            setCoords(event, 0, i, x[i], y[i]);
+        }
+    }
+
+    /**
+     * Writes the trace to the given stream, without closing it.
+     */
+    public void writeTo(@NonNull OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        writeVarInt(out, viewWidth);
+        writeVarInt(out, viewHeight);
+        writeVarInt(out, eventCount);
+        long previousTime = sampleCount > 0 ? sampleTimes[0] : 0L;
+        for (int event = 0; event < eventCount; event++) {
+            int pointerCount = pointerCounts[event];
+            int historySize = historySizes[event];
+            writeVarInt(out, actions[event]);
+            writeVarInt(out, pointerCount);
+            writeVarInt(out, historySize);
+            for (int i = 0; i < pointerCount; i++) {
+                writeVarInt(out, pointerIds[pointerOffsets[event] + i]);
+            }
+            for (int pos = 0; pos <= historySize; pos++) {
+                long time = sampleTimes[sampleOffsets[event] + pos];
+                writeVarLong(out, zigZag(time - previousTime));
+                previousTime = time;
+                for (int i = 0; i < pointerCount; i++) {
+                    int index = coordIndex(event, i, pos);
+                    out.writeFloat(xs[index]);
+                    out.writeFloat(ys[index]);
+                }
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Reads a trace written by {@link #writeTo(OutputStream)}, without closing the stream.
+     *
+     * @throws IOException if the stream doesn't contain a trace or ends before it's complete.
+     */
+    @NonNull
+    public static GestureTrace readFrom(@NonNull InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a gesture trace");
+        }
+        int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported gesture trace version: " + version);
+        }
+        GestureTrace trace = new GestureTrace(readVarInt(in), readVarInt(in));
+        int eventCount = readVarInt(in);
+        if (eventCount < 0) {
+            throw new IOException("Corrupted gesture trace");
+        }
+        long time = 0L;
+        for (int e = 0; e < eventCount; e++) {
+            int action = readVarInt(in);
+            int pointerCount = readVarInt(in);
+            int historySize = readVarInt(in);
+            if (pointerCount < 1 || pointerCount > MAX_POINTERS
+                    || historySize < 0 || historySize > MAX_HISTORY_SIZE) {
+                throw new IOException("Corrupted gesture trace");
+            }
+            int event = trace.appendEvent(action, pointerCount, historySize);
+            for (int i = 0; i < pointerCount; i++) {
+                trace.setPointerId(event, i, readVarInt(in));
+            }
+            for (int pos = 0; pos <= historySize; pos++) {
+                time += unZigZag(readVarLong(in));
+                trace.setSampleTime(event, pos, time);
+                for (int i = 0; i < pointerCount; i++) {
+                    trace.setCoords(event, pos, i, in.readFloat(), in.readFloat());
+                }
+            }
+        }
+        return trace;
+    }
+
+    /**
+     * Reserves the space of a new event, filled afterwards through {@link #setPointerId},
+     * {@link #setSampleTime} and {@link #setCoords}.
+     *
+     * @return index of the event.
+     */
+    int appendEvent(int action, int pointerCount, int historySize) {
+        int event = eventCount;
+        if (event == actions.length) {
+            int capacity = event * 2;
+            actions = Arrays.copyOf(actions, capacity);
+            pointerCounts = Arrays.copyOf(pointerCounts, capacity);
+            historySizes = Arrays.copyOf(historySizes, capacity);
+            pointerOffsets = Arrays.copyOf(pointerOffsets, capacity);
+            sampleOffsets = Arrays.copyOf(sampleOffsets, capacity);
+            coordOffsets = Arrays.copyOf(coordOffsets, capacity);
+        }
+        int samples = historySize + 1;
+        int coords = samples * pointerCount;
+        pointerIds = ensureCapacity(pointerIds, pointerIdCount + pointerCount);
+        sampleTimes = ensureCapacity(sampleTimes, sampleCount + samples);
+        xs = ensureCapacity(xs, coordCount + coords);
+        ys = ensureCapacity(ys, coordCount + coords);
+        actions[event] = action;
+        pointerCounts[event] = pointerCount;
+        historySizes[event] = historySize;
+        pointerOffsets[event] = pointerIdCount;
+        sampleOffsets[event] = sampleCount;
+        coordOffsets[event] = coordCount;
+        pointerIdCount += pointerCount;
+        sampleCount += samples;
+        coordCount += coords;
+        eventCount++;
+        return event;
+    }
+
+    void setPointerId(int event, int pointerIndex, int pointerId) {
+        pointerIds[pointerOffsets[event] + pointerIndex] = pointerId;
+    }
+
+    void setSampleTime(int event, int pos, long eventTime) {
+        sampleTimes[sampleOffsets[event] + pos] = eventTime;
+    }
+
+    void setCoords(int event, int pos, int pointerIndex, float x, float y) {
+        int index = coordIndex(event, pointerIndex, pos);
+        xs[index] = x;
+        ys[index] = y;
+    }
+
+    private int coordIndex(int event, int pointerIndex, int pos) {
+        return coordOffsets[event] + pos * pointerCounts[event] + pointerIndex;
+    }
+
+    private int checkEvent(int event) {
+        if (event < 0 || event >= eventCount) {
+            throw new IndexOutOfBoundsException("Invalid event: " + event);
+        }
+        return event;
+    }
+
+    private int checkPointer(int event, int pointerIndex) {
+        if (pointerIndex < 0 || pointerIndex >= getPointerCount(event)) {
+            throw new IndexOutOfBoundsException("Invalid pointer index: " + pointerIndex);
+        }
+        return pointerIndex;
+    }
+
+    private int checkPos(int event, int pos) {
+        if (pos < 0 || pos > getHistorySize(event)) {
+            throw new IndexOutOfBoundsException("Invalid sample: " + pos);
+        }
+        return pos;
+    }
+
+    private static int[] ensureCapacity(int[] array, int size) {
+        return size <= array.length ? array : Arrays.copyOf(array, Math.max(size, array.length * 2));
+    }
+
+    private static long[] ensureCapacity(long[] array, int size) {
+        return size <= array.length ? array : Arrays.copyOf(array, Math.max(size, array.length * 2));
+    }
+
+    private static float[] ensureCapacity(float[] array, int size) {
+        return size <= array.length ? array : Arrays.copyOf(array, Math.max(size, array.length * 2));
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        writeVarLong(out, value & 0xFFFFFFFFL);
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        long value = readVarLong(in);
+        if (value > 0xFFFFFFFFL) {
+            throw new IOException("Corrupted gesture trace");
+        }
+        return (int) value;
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0L;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b == -1) throw new EOFException();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Corrupted gesture trace");
+    }
+
+}
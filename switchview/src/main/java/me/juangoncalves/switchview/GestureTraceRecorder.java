@@ -0,0 +1,74 @@
+package me.juangoncalves.switchview;
+
+import android.view.MotionEvent;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Records the touch events delivered to a view into a {@link GestureTrace}, so a gesture that
+ * misbehaves on a device can be stored and replayed later.
+ * <p>
+ * The recorder is set as the touch listener of the view and never consumes the events, the view
+ * keeps handling them as usual. The trace takes the size the view has when the first event
+ * arrives.
+ */
+public class GestureTraceRecorder implements View.OnTouchListener {
+
+    @Nullable
+    private View view;
+    @Nullable
+    private GestureTrace trace;
+
+    /**
+     * Starts recording the events delivered to the given view, replacing its touch listener.
+     */
+    public void start(@NonNull View view) {
+        stop();
+        this.view = view;
+        view.setOnTouchListener(this);
+    }
+
+    /**
+     * Stops recording, removing the recorder from the view.
+     *
+     * @return the events recorded since the recording started or the last call to this method, or
+     * null if none arrived.
+     */
+    @Nullable
+    public GestureTrace stop() {
+        if (view != null) {
+            view.setOnTouchListener(null);
+            view = null;
+        }
+        GestureTrace recorded = trace;
+        trace = null;
+        return recorded;
+    }
+
+    @Override
+    public boolean onTouch(View v, MotionEvent ev) {
+        if (trace == null) {
+            trace = new GestureTrace(v.getWidth(), v.getHeight());
+        }
+        int pointerCount = ev.getPointerCount();
+        int historySize = ev.getHistorySize();
+        int event = trace.appendEvent(ev.getAction(), pointerCount, historySize);
+        for (int i = 0; i < pointerCount; i++) {
+            trace.setPointerId(event, i, ev.getPointerId(i));
+        }
+        for (int pos = 0; pos < historySize; pos++) {
+            trace.setSampleTime(event, pos, ev.getHistoricalEventTime(pos));
+            for (int i = 0; i < pointerCount; i++) {
+                trace.setCoords(event, pos, i, ev.getHistoricalX(i, pos), ev.getHistoricalY(i, pos));
+            }
+        }
+        trace.setSampleTime(event, historySize, ev.getEventTime());
+        for (int i = 0; i < pointerCount; i++) {
+            trace.setCoords(event, historySize, i, ev.getX(i), ev.getY(i));
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,113 @@
+package me.juangoncalves.switchview;
+
+/**
+ * Predicts where the pointer of a drag will be a few milliseconds ahead, so the inner shape can be
+ * drawn where the finger is expected to be when the frame reaches the display instead of where it
+ * was when the last touch event was generated.
+ * <p>
+ * The recent samples are kept in a fixed ring buffer and extrapolated with the velocity of a
+ * least squares fit. The prediction is damped by how much it can be trusted: it is reduced while
+ * the pointer slows down, and dropped when the pointer changes direction or there are too few
+ * samples, so the inner shape doesn't overshoot when the finger stops at the end of the switch.
+ */
+class MotionPredictor {
+
+    private static final int CAPACITY = 8;
+    // Samples older than this (in ms) don't describe the current motion anymore
+    private static final long HISTORY_WINDOW = 60L;
+    // Beyond this (in ms) the extrapolation error grows faster than the latency it hides
+    private static final long MAX_HORIZON = 32L;
+    private static final int MIN_SAMPLES = 3;
+
+    private final float[] positions = new float[CAPACITY];
+    private final long[] times = new long[CAPACITY];
+    private int newest = -1;
+    private int size;
+
+    void reset() {
+        newest = -1;
+        size = 0;
+    }
+
+    /**
+     * @param eventTime time of the sample in the {@link android.os.SystemClock#uptimeMillis()} base.
+     */
+    void addSample(float x, long eventTime) {
+        if (size > 0) {
+            long newestTime = times[newest];
+            if (eventTime < newestTime) return;
+            if (eventTime == newestTime) {
+                positions[newest] = x;
+                return;
+            }
+        }
+        newest = (newest + 1) % CAPACITY;
+        positions[newest] = x;
+        times[newest] = eventTime;
+        size = Math.min(size + 1, CAPACITY);
+    }
+
+    /**
+     * @param targetTime time to predict the position for, in the same base as the samples.
+     * @return the predicted position, or the last known one when the motion can't be predicted.
+     */
+    float predict(long targetTime) {
+        if (size == 0) return 0f;
+        float lastPosition = positions[newest];
+        long newestTime = times[newest];
+        int count = 1;
+        while (count < size && newestTime - times[indexOf(count)] <= HISTORY_WINDOW) {
+            count++;
+        }
+        if (count < MIN_SAMPLES) return lastPosition;
+
+        float velocity = slope(0, count);
+        int half = (count + 1) / 2;
+        float recentVelocity = slope(0, half);
+        float olderVelocity = slope(count - half, half);
+        if (velocity * recentVelocity <= 0f || velocity * olderVelocity <= 0f) {
+            // The pointer changed direction (or stopped) within the window
+            return lastPosition;
+        }
+        // Squared so that a slowing pointer loses the prediction well before it stops
+        float deceleration = Math.min(1f, Math.abs(recentVelocity / olderVelocity));
+        float confidence = deceleration * deceleration;
+        // Trust the fit less when it's made of few samples
+        confidence *= Math.min(1f, (count - MIN_SAMPLES + 1) / 2f);
+        long horizon = Math.min(targetTime - newestTime, MAX_HORIZON);
+        if (horizon <= 0L) return lastPosition;
+        return lastPosition + velocity * horizon * confidence;
+    }
+
+    /**
+     * @return the velocity in pixels per millisecond of the least squares line fitting the given
+     * samples, where offset 0 is the newest sample.
+     */
+    private float slope(int newestOffset, int count) {
+        if (count < 2) return 0f;
+        long referenceTime = times[indexOf(newestOffset)];
+        float sumT = 0f;
+        float sumX = 0f;
+        for (int i = newestOffset; i < newestOffset + count; i++) {
+            int index = indexOf(i);
+            sumT += times[index] - referenceTime;
+            sumX += positions[index];
+        }
+        float meanT = sumT / count;
+        float meanX = sumX / count;
+        float covariance = 0f;
+        float variance = 0f;
+        for (int i = newestOffset; i < newestOffset + count; i++) {
+            int index = indexOf(i);
+            float t = times[index] - referenceTime - meanT;
+            covariance += t * (positions[index] - meanX);
+            variance += t * t;
+        }
+        return variance == 0f ? 0f : covariance / variance;
+    }
+
+    private int indexOf(int offsetFromNewest) {
+        return (newest - offsetFromNewest + CAPACITY) % CAPACITY;
+    }
+
+}
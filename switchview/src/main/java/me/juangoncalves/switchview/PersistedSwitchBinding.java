@@ -0,0 +1,192 @@
+package me.juangoncalves.switchview;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Binds switches to states kept in a {@link SwitchStateStore}, writing their changes behind the
+ * scenes.
+ * <p>
+ * Changes are not written straight away: they are collected on the main thread until no switch
+ * has changed for the write delay, and then only the final state of every changed switch is handed
+ * to the store on a background thread. Toggling a switch repeatedly or changing many switches at
+ * once ends up in a single write.
+ * <p>
+ * Pending changes are written when a bound switch is detached from its window, and should be
+ * written with {@link #flushAndWait()} when the process may go away, e.g. from {@code onPause()}.
+ */
+public class PersistedSwitchBinding {
+
+    public static final long DEFAULT_WRITE_DELAY = 300L;
+
+    private static Executor defaultWriteExecutor;
+
+    private final SwitchStateStore store;
+    private final Executor writeExecutor;
+    private final long writeDelayMillis;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable flushRunnable = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+    private final HashMap<String, Boolean> pendingStates = new HashMap<>();
+    // States changed through this binding until the store has written them, so the store isn't
+    // read for them in the meantime
+    private final HashMap<String, Boolean> knownStates = new HashMap<>();
+
+    public PersistedSwitchBinding(@NonNull SwitchStateStore store) {
+        this(store, getDefaultWriteExecutor(), DEFAULT_WRITE_DELAY);
+    }
+
+    /**
+     * @param writeExecutor    runs the writes, one after the other in the order they are given.
+     * @param writeDelayMillis time without changes after which the pending ones are written.
+     */
+    public PersistedSwitchBinding(@NonNull SwitchStateStore store, @NonNull Executor writeExecutor, long writeDelayMillis) {
+        this.store = store;
+        this.writeExecutor = writeExecutor;
+        this.writeDelayMillis = writeDelayMillis;
+    }
+
+    /**
+     * Moves the given switch to the stored state of the given key, without animating it, and
+     * stores every following change under that key. Binding a switch again, e.g. when a row is
+     * recycled, replaces its previous key.
+     * <p>
+     * The checked change listener of the switch keeps being notified, but a switch is bound to a
+     * single item: binding it replaces a binding made by another binding or a
+     * {@link SwitchStateSet}.
+     */
+    public void bind(@NonNull BllocSwitchView view, @NonNull String key, boolean defaultValue) {
+        ViewBinding binding = (ViewBinding) SwitchBinding.get(view, this);
+        if (binding == null) {
+            binding = new ViewBinding();
+        }
+        binding.key = key;
+        SwitchBinding.bind(view, binding, getState(key, defaultValue));
+    }
+
+    public void unbind(@NonNull BllocSwitchView view) {
+        SwitchBinding.unbind(view, this);
+    }
+
+    /**
+     * Hands the pending changes over to the store straight away, without waiting for them to be
+     * written.
+     */
+    public void flush() {
+        handler.removeCallbacks(flushRunnable);
+        if (pendingStates.isEmpty()) return;
+        final HashMap<String, Boolean> states = new HashMap<>(pendingStates);
+        pendingStates.clear();
+        writeExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                store.write(states);
+                handler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        onStatesWritten(states);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Hands the pending changes over to the store and blocks until every change handed over so
+     * far has been written, so the store holds them when this returns.
+     */
+    public void flushAndWait() {
+        flush();
+        final CountDownLatch written = new CountDownLatch(1);
+        // The writes run in order, so this runs once the previous ones are done
+        writeExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                written.countDown();
+            }
+        });
+        boolean interrupted = false;
+        while (true) {
+            try {
+                written.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return how many states are kept until the store writes them, for the tests.
+     */
+    int getKnownStateCount() {
+        return knownStates.size();
+    }
+
+    private boolean getState(String key, boolean defaultValue) {
+        Boolean state = knownStates.get(key);
+        return state != null ? state : store.isChecked(key, defaultValue);
+    }
+
+    /**
+     * Forgets the written states, unless they changed again since, as the store holds them now.
+     */
+    private void onStatesWritten(Map<String, Boolean> states) {
+        for (Map.Entry<String, Boolean> state : states.entrySet()) {
+            String key = state.getKey();
+            if (!pendingStates.containsKey(key) && state.getValue().equals(knownStates.get(key))) {
+                knownStates.remove(key);
+            }
+        }
+    }
+
+    private void onStateChanged(String key, boolean checked) {
+        knownStates.put(key, checked);
+        pendingStates.put(key, checked);
+        handler.removeCallbacks(flushRunnable);
+        handler.postDelayed(flushRunnable, writeDelayMillis);
+    }
+
+    private static synchronized Executor getDefaultWriteExecutor() {
+        if (defaultWriteExecutor == null) {
+            defaultWriteExecutor = Executors.newSingleThreadExecutor();
+        }
+        return defaultWriteExecutor;
+    }
+
+    private class ViewBinding extends SwitchBinding {
+
+        String key;
+
+        ViewBinding() {
+            super(PersistedSwitchBinding.this);
+        }
+
+        @Override
+        void onCheckedChanged(boolean isChecked) {
+            onStateChanged(key, isChecked);
+        }
+
+        @Override
+        void onDetachedFromWindow() {
+            flush();
+        }
+
+    }
+
+}
@@ -0,0 +1,35 @@
+package me.juangoncalves.switchview;
+
+import android.content.SharedPreferences;
+
+import androidx.annotation.NonNull;
+
+import java.util.Map;
+
+/**
+ * Keeps the state of every switch as a boolean preference named after its key.
+ */
+public class SharedPreferencesSwitchStateStore implements SwitchStateStore {
+
+    private final SharedPreferences preferences;
+
+    public SharedPreferencesSwitchStateStore(@NonNull SharedPreferences preferences) {
+        this.preferences = preferences;
+    }
+
+    @Override
+    public boolean isChecked(@NonNull String key, boolean defaultValue) {
+        return preferences.getBoolean(key, defaultValue);
+    }
+
+    @Override
+    public void write(@NonNull Map<String, Boolean> states) {
+        SharedPreferences.Editor editor = preferences.edit();
+        for (Map.Entry<String, Boolean> state : states.entrySet()) {
+            editor.putBoolean(state.getKey(), state.getValue());
+        }
+        // Already off the main thread, so wait until it's on disk
+        editor.commit();
+    }
+
+}
@@ -0,0 +1,183 @@
+package me.juangoncalves.switchview;
+
+/**
+ * Drives the inner shape of the switch towards its resting position with a damped spring.
+ * <p>
+ * The spring starts from the current position and velocity, so a fling carries its release
+ * velocity into the settle animation and a transition retargeted mid-flight (e.g. toggling the
+ * switch while it is still moving) changes direction smoothly instead of restarting. The width of
+ * the inner shape and the opacity of the container are derived from the position, so they advance
+ * together from the same clock tick.
+ * <p>
+ * Every value is kept in a primitive field and the instance is reused for every transition, so
+ * once constructed it does not allocate, no matter how many times the switch is toggled.
+ */
+class SwitchAnimator {
+
+    static final float DEFAULT_STIFFNESS = 400f;
+    static final float DEFAULT_DAMPING_RATIO = 1f;
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+    private static final long NOT_STARTED = -1L;
+    // Distance (px) and speed (px/s) under which the spring is considered at rest
+    private static final double POSITION_THRESHOLD = 0.25;
+    private static final double VELOCITY_THRESHOLD = 15.0;
+
+    private double naturalFrequency;
+    private double dampingRatio;
+
+    private double position;
+    private double velocity;
+    private double target;
+    private long lastFrameTimeNanos = NOT_STARTED;
+    private long startDelayNanos;
+    private long delayEndTimeNanos;
+    private boolean running;
+
+    SwitchAnimator() {
+        this(DEFAULT_STIFFNESS, DEFAULT_DAMPING_RATIO);
+    }
+
+    SwitchAnimator(float stiffness, float dampingRatio) {
+        setSpring(stiffness, dampingRatio);
+    }
+
+    /**
+     * @param stiffness    spring constant for a unit mass, higher values settle faster.
+     * @param dampingRatio 1 settles without bouncing, lower (but positive) values bounce, higher
+     *                     values crawl.
+     */
+    void setSpring(float stiffness, float dampingRatio) {
+        checkSpring(stiffness, dampingRatio);
+        this.naturalFrequency = Math.sqrt(stiffness);
+        this.dampingRatio = dampingRatio;
+    }
+
+    static void checkSpring(float stiffness, float dampingRatio) {
+        if (!(stiffness > 0)) {
+            throw new IllegalArgumentException("The spring stiffness must be positive");
+        }
+        // Without damping the spring would oscillate forever, asking for frames that never end
+        if (!(dampingRatio > 0)) {
+            throw new IllegalArgumentException("The spring damping ratio must be positive");
+        }
+    }
+
+    /**
+     * Starts moving towards the given target from the given position and velocity. When called
+     * while running, the transition is retargeted keeping the frame clock, so it doesn't restart.
+     *
+     * @param velocity in pixels per second.
+     */
+    void start(float position, float velocity, float target) {
+        start(position, velocity, target, 0L);
+    }
+
+    /**
+     * Same as {@link #start(float, float, float)}, but the spring is held at its initial position
+     * for the given delay (measured from the next frame) before it starts moving.
+     */
+    void start(float position, float velocity, float target, long startDelayNanos) {
+        this.position = position;
+        this.velocity = velocity;
+        this.target = target;
+        if (!running || startDelayNanos > 0) {
+            // The clock starts on the next frame, so it always renders the initial values
+            lastFrameTimeNanos = NOT_STARTED;
+            this.startDelayNanos = startDelayNanos;
+            running = true;
+        }
+    }
+
+    /**
+     * Stops the transition leaving the current values untouched.
+     */
+    void cancel() {
+        running = false;
+        velocity = 0;
+    }
+
+    boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Advances the transition to the given frame time.
+     *
+     * @return true if the spring has not come to rest yet.
+     */
+    boolean step(long frameTimeNanos) {
+        if (!running) return false;
+        if (lastFrameTimeNanos == NOT_STARTED) {
+            lastFrameTimeNanos = frameTimeNanos;
+            delayEndTimeNanos = frameTimeNanos + startDelayNanos;
+            return true;
+        }
+        if (frameTimeNanos < delayEndTimeNanos) {
+            lastFrameTimeNanos = frameTimeNanos;
+            return true;
+        }
+        double elapsed = (frameTimeNanos - lastFrameTimeNanos) / NANOS_PER_SECOND;
+        lastFrameTimeNanos = frameTimeNanos;
+        if (elapsed <= 0) return true;
+        integrate(elapsed);
+        if (Math.abs(position - target) < POSITION_THRESHOLD && Math.abs(velocity) < VELOCITY_THRESHOLD) {
+            position = target;
+            velocity = 0;
+            running = false;
+        }
+        return running;
+    }
+
+    float getPosition() {
+        return (float) position;
+    }
+
+    /**
+     * @return the current velocity in pixels per second.
+     */
+    float getVelocity() {
+        return (float) velocity;
+    }
+
+    float getTarget() {
+        return (float) target;
+    }
+
+    private void integrate(double t) {
+        // Closed form solution of the damped harmonic oscillator, exact for any frame interval
+        double omega = naturalFrequency;
+        double zeta = dampingRatio;
+        double x0 = position - target;
+        double v0 = velocity;
+        double x;
+        double v;
+        if (zeta > 1) {
+            double root = omega * Math.sqrt(zeta * zeta - 1);
+            double gammaPlus = -zeta * omega + root;
+            double gammaMinus = -zeta * omega - root;
+            double coefficientB = (gammaMinus * x0 - v0) / (gammaMinus - gammaPlus);
+            double coefficientA = x0 - coefficientB;
+            double expMinus = Math.exp(gammaMinus * t);
+            double expPlus = Math.exp(gammaPlus * t);
+            x = coefficientA * expMinus + coefficientB * expPlus;
+            v = coefficientA * gammaMinus * expMinus + coefficientB * gammaPlus * expPlus;
+        } else if (zeta == 1) {
+            double coefficientB = v0 + omega * x0;
+            double decay = Math.exp(-omega * t);
+            x = (x0 + coefficientB * t) * decay;
+            v = coefficientB * decay - omega * x;
+        } else {
+            double dampedFrequency = omega * Math.sqrt(1 - zeta * zeta);
+            double sinCoefficient = (zeta * omega * x0 + v0) / dampedFrequency;
+            double decay = Math.exp(-zeta * omega * t);
+            double cos = Math.cos(dampedFrequency * t);
+            double sin = Math.sin(dampedFrequency * t);
+            x = decay * (x0 * cos + sinCoefficient * sin);
+            v = -zeta * omega * x + decay * dampedFrequency * (sinCoefficient * cos - x0 * sin);
+        }
+        position = target + x;
+        velocity = v;
+    }
+
+}
@@ -0,0 +1,61 @@
+package me.juangoncalves.switchview;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Binds a switch to the state of an item kept outside of the view, by a source such as a
+ * {@link SwitchStateSet} or a {@link PersistedSwitchBinding}.
+ * <p>
+ * A switch holds its binding apart from its checked change listener, so binding it doesn't replace
+ * the listener set by the app, and it holds a single one: binding it to another item, of the same
+ * or another source, replaces the previous binding.
+ */
+abstract class SwitchBinding {
+
+    private final Object source;
+
+    SwitchBinding(@NonNull Object source) {
+        this.source = source;
+    }
+
+    /**
+     * @return the binding of the given switch to the given source, or null if it isn't bound to it.
+     */
+    @Nullable
+    static SwitchBinding get(@NonNull BllocSwitchView view, @NonNull Object source) {
+        SwitchBinding binding = view.getBinding();
+        return binding != null && binding.source == source ? binding : null;
+    }
+
+    /**
+     * Moves the given switch to the given state without animating it, and then binds it.
+     */
+    static void bind(@NonNull BllocSwitchView view, @NonNull SwitchBinding binding, boolean checked) {
+        // The state of the new item must not be taken as a change of the previous one
+        view.setBinding(null);
+        view.jumpToState(checked);
+        view.setBinding(binding);
+    }
+
+    /**
+     * Unbinds the given switch if it's bound to the given source.
+     */
+    static void unbind(@NonNull BllocSwitchView view, @NonNull Object source) {
+        if (get(view, source) != null) {
+            view.setBinding(null);
+        }
+    }
+
+    /**
+     * Called when the state of the bound switch changes, before its checked change listener.
+     */
+    abstract void onCheckedChanged(boolean isChecked);
+
+    /**
+     * Called when the bound switch is detached from its window.
+     */
+    void onDetachedFromWindow() {
+    }
+
+}
@@ -0,0 +1,131 @@
+package me.juangoncalves.switchview;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Pixel sizes of a switch: its container, the space between the container and the inner shape,
+ * and the stroke of the inner shape.
+ * <p>
+ * Instances are immutable and shared: the ones for the default sizes are cached per density, and
+ * the most recently used other ones per size. Sizes are bucketed, the container to whole pixels and
+ * the padding and stroke to eighths of a pixel, so many switches of about the same size resolve
+ * their layout to the same instances.
+ */
+final class SwitchDimensions {
+
+    static final float DEFAULT_WIDTH_DP = 48f;
+    static final float DEFAULT_HEIGHT_DP = 24f;
+    static final float DEFAULT_PADDING_DP = 7f;
+    static final float DEFAULT_STROKE_WIDTH_DP = 1.5f;
+
+    // Buckets per pixel of the padding and the stroke width
+    private static final int SUBPIXEL_BUCKETS = 8;
+    private static final int MAX_CACHED_SIZES = 64;
+
+    private static final HashMap<Float, SwitchDimensions> defaultsPerDensity = new HashMap<>();
+    // Sizes in access order, the least recently used one is dropped when there are too many
+    private static final LinkedHashMap<SwitchDimensions, SwitchDimensions> cache =
+            new LinkedHashMap<SwitchDimensions, SwitchDimensions>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<SwitchDimensions, SwitchDimensions> eldest) {
+                    return size() > MAX_CACHED_SIZES;
+                }
+            };
+
+    final int width;
+    final int height;
+    final float padding;
+    final float strokeWidth;
+
+    private SwitchDimensions(int width, int height, float padding, float strokeWidth) {
+        this.width = width;
+        this.height = height;
+        this.padding = padding;
+        this.strokeWidth = strokeWidth;
+    }
+
+    /**
+     * @return the default sizes for the given screen density.
+     */
+    static synchronized SwitchDimensions forDensity(float density) {
+        SwitchDimensions dimensions = defaultsPerDensity.get(density);
+        if (dimensions == null) {
+            dimensions = obtain(
+                    DEFAULT_WIDTH_DP * density,
+                    DEFAULT_HEIGHT_DP * density,
+                    DEFAULT_PADDING_DP * density,
+                    DEFAULT_STROKE_WIDTH_DP * density
+            );
+            defaultsPerDensity.put(density, dimensions);
+        }
+        return dimensions;
+    }
+
+    /**
+     * @return the shared instance for the given sizes, in pixels. The container size is rounded to
+     * whole pixels, the padding and the stroke width to eighths of a pixel.
+     */
+    static synchronized SwitchDimensions obtain(float width, float height, float padding, float strokeWidth) {
+        padding = toBucket(padding);
+        strokeWidth = toBucket(strokeWidth);
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("The switch size must be positive: " + width + "x" + height);
+        }
+        if (padding < 0 || padding * 2 >= height) {
+            throw new IllegalArgumentException("The padding must fit in the switch: " + padding);
+        }
+        if (strokeWidth < 0) {
+            throw new IllegalArgumentException("The stroke width can't be negative: " + strokeWidth);
+        }
+        SwitchDimensions key = new SwitchDimensions(Math.round(width), Math.round(height), padding, strokeWidth);
+        SwitchDimensions dimensions = cache.get(key);
+        if (dimensions == null) {
+            cache.put(key, key);
+            dimensions = key;
+        }
+        return dimensions;
+    }
+
+    /**
+     * @return the largest sizes with the same proportions fitting in the given space, or these
+     * ones if the space is empty.
+     */
+    SwitchDimensions scaledToFit(int availableWidth, int availableHeight) {
+        if (availableWidth <= 0 || availableHeight <= 0) return this;
+        float scale = Math.min((float) availableWidth / width, (float) availableHeight / height);
+        int scaledWidth = Math.max(1, Math.round(width * scale));
+        int scaledHeight = Math.max(1, Math.round(height * scale));
+        if (scaledWidth == width && scaledHeight == height) return this;
+        // Scale the rest by the rounded height, so every space ending up with the same container
+        // size shares the same instance
+        float roundedScale = (float) scaledHeight / height;
+        return obtain(scaledWidth, scaledHeight, padding * roundedScale, strokeWidth * roundedScale);
+    }
+
+    private static float toBucket(float size) {
+        return Math.round(size * SUBPIXEL_BUCKETS) / (float) SUBPIXEL_BUCKETS;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof SwitchDimensions)) return false;
+        SwitchDimensions that = (SwitchDimensions) o;
+        return width == that.width
+                && height == that.height
+                && Float.compare(that.padding, padding) == 0
+                && Float.compare(that.strokeWidth, strokeWidth) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = width;
+        result = 31 * result + height;
+        result = 31 * result + Float.floatToIntBits(padding);
+        result = 31 * result + Float.floatToIntBits(strokeWidth);
+        return result;
+    }
+
+}
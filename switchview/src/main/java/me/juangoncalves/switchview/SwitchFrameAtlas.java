@@ -0,0 +1,180 @@
+package me.juangoncalves.switchview;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+
+/**
+ * A bitmap holding {@link #FRAME_COUNT} pre-rendered frames of the switch, evenly spread between
+ * its checked and unchecked positions, so that every frame can be drawn with a single bitmap copy
+ * instead of tessellating the rounded container and the stroked inner shape.
+ * <p>
+ * Atlases are shared by every switch with the same pixel size, stroke and color through an LRU
+ * cache bounded by {@link #setCacheSize(int)}. As the key is made of pixel dimensions, switches on
+ * screens with different densities never share an atlas.
+ */
+final class SwitchFrameAtlas {
+
+    static final int FRAME_COUNT = 32;
+    static final int DEFAULT_CACHE_SIZE = 4 * 1024 * 1024;
+
+    // Keeps the bitmap within the texture size limits of every device
+    private static final int MAX_ATLAS_WIDTH = 2048;
+
+    private static final AtlasCache cache = new AtlasCache(DEFAULT_CACHE_SIZE);
+
+    private final Bitmap bitmap;
+    private final int cellWidth;
+    private final int cellHeight;
+    private final int columns;
+
+    private SwitchFrameAtlas(Bitmap bitmap, int cellWidth, int cellHeight, int columns) {
+        this.bitmap = bitmap;
+        this.cellWidth = cellWidth;
+        this.cellHeight = cellHeight;
+        this.columns = columns;
+    }
+
+    /**
+     * @param maxBytes memory budget shared by all the atlases kept in memory.
+     */
+    static void setCacheSize(int maxBytes) {
+        cache.resize(maxBytes);
+    }
+
+    /**
+     * Returns the atlas for the given switch, rendering it if it isn't in the cache.
+     *
+     * @param containerRect   bounds of the container, only its size is taken into account.
+     * @param innerShapePaint paint used for the inner shape, only its stroke width is taken into
+     *                        account.
+     */
+    @NonNull
+    static SwitchFrameAtlas obtain(SwitchGeometry geometry, RectF containerRect, float padding, int containerColor, Paint innerShapePaint) {
+        int cellWidth = (int) Math.ceil(containerRect.width());
+        int cellHeight = (int) Math.ceil(containerRect.height());
+        float strokeWidth = innerShapePaint.getStrokeWidth();
+        Key key = new Key(cellWidth, cellHeight, padding, strokeWidth, containerColor);
+        SwitchFrameAtlas atlas = cache.get(key);
+        if (atlas == null) {
+            atlas = render(geometry, containerRect, padding, cellWidth, cellHeight, innerShapePaint);
+            cache.put(key, atlas);
+        }
+        return atlas;
+    }
+
+    /**
+     * Draws the frame closest to the given inner shape position.
+     *
+     * @param src reusable rect to avoid allocating while drawing.
+     * @param dst reusable rect to avoid allocating while drawing.
+     */
+    void draw(Canvas canvas, SwitchGeometry geometry, float innerShapeLeft, RectF containerRect, Rect src, RectF dst, Paint paint) {
+        int frame = frameForPosition(geometry, innerShapeLeft);
+        int left = (frame % columns) * cellWidth;
+        int top = (frame / columns) * cellHeight;
+        src.set(left, top, left + cellWidth, top + cellHeight);
+        dst.set(containerRect.left, containerRect.top, containerRect.left + cellWidth, containerRect.top + cellHeight);
+        canvas.drawBitmap(bitmap, src, dst, paint);
+    }
+
+    private static int frameForPosition(SwitchGeometry geometry, float innerShapeLeft) {
+        float range = geometry.getMaxLeft() - geometry.getMinLeft();
+        if (range <= 0) return 0;
+        float fraction = (innerShapeLeft - geometry.getMinLeft()) / range;
+        int frame = Math.round(fraction * (FRAME_COUNT - 1));
+        return frame < 0 ? 0 : (frame >= FRAME_COUNT ? FRAME_COUNT - 1 : frame);
+    }
+
+    private static SwitchFrameAtlas render(SwitchGeometry geometry, RectF containerRect, float padding, int cellWidth, int cellHeight, Paint innerShapePaint) {
+        int columns = Math.max(1, Math.min(FRAME_COUNT, MAX_ATLAS_WIDTH / Math.max(1, cellWidth)));
+        int rows = (FRAME_COUNT + columns - 1) / columns;
+        Bitmap bitmap = Bitmap.createBitmap(columns * cellWidth, rows * cellHeight, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+        Paint containerPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        containerPaint.setStyle(Paint.Style.FILL);
+        Paint strokePaint = new Paint(innerShapePaint);
+        // The alpha and color filter of the drawable are applied when drawing the frames
+        strokePaint.setAlpha(0xFF);
+        strokePaint.setColorFilter(null);
+        float radius = containerRect.height() / 2;
+        RectF container = new RectF(0, 0, containerRect.width(), containerRect.height());
+        RectF innerShape = new RectF();
+        innerShape.top = padding;
+        innerShape.bottom = containerRect.height() - padding;
+        float minLeft = geometry.getMinLeft();
+        float range = geometry.getMaxLeft() - minLeft;
+        for (int frame = 0; frame < FRAME_COUNT; frame++) {
+            float position = minLeft + range * frame / (FRAME_COUNT - 1);
+            innerShape.left = position - containerRect.left;
+            innerShape.right = innerShape.left + geometry.widthForPosition(position);
+            containerPaint.setColor(geometry.colorForPosition(position));
+            canvas.save();
+            canvas.translate((frame % columns) * cellWidth, (frame / columns) * cellHeight);
+            canvas.clipRect(0, 0, cellWidth, cellHeight);
+            canvas.drawRoundRect(container, radius, radius, containerPaint);
+            canvas.drawArc(innerShape, 0, 360, true, strokePaint);
+            canvas.restore();
+        }
+        return new SwitchFrameAtlas(bitmap, cellWidth, cellHeight, columns);
+    }
+
+    private static final class Key {
+
+        private final int width;
+        private final int height;
+        private final float padding;
+        private final float strokeWidth;
+        private final int color;
+
+        Key(int width, int height, float padding, float strokeWidth, int color) {
+            this.width = width;
+            this.height = height;
+            this.padding = padding;
+            this.strokeWidth = strokeWidth;
+            this.color = color;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return width == key.width
+                    && height == key.height
+                    && Float.compare(key.padding, padding) == 0
+                    && Float.compare(key.strokeWidth, strokeWidth) == 0
+                    && color == key.color;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = width;
+            result = 31 * result + height;
+            result = 31 * result + Float.floatToIntBits(padding);
+            result = 31 * result + Float.floatToIntBits(strokeWidth);
+            result = 31 * result + color;
+            return result;
+        }
+
+    }
+
+    private static final class AtlasCache extends LruCache<Key, SwitchFrameAtlas> {
+
+        AtlasCache(int maxBytes) {
+            super(maxBytes);
+        }
+
+        @Override
+        protected int sizeOf(Key key, SwitchFrameAtlas atlas) {
+            return atlas.bitmap.getAllocationByteCount();
+        }
+
+    }
+
+}
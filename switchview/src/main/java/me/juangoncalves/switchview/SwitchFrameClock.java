@@ -0,0 +1,31 @@
+package me.juangoncalves.switchview;
+
+import android.view.Choreographer;
+
+/**
+ * Source of the frames that advance a switch. Switches are driven by the Choreographer of the
+ * thread they are used on, other clocks let the frames be produced on demand, e.g. to replay a
+ * gesture with the same frame timing on every run.
+ */
+interface SwitchFrameClock {
+
+    SwitchFrameClock CHOREOGRAPHER = new SwitchFrameClock() {
+        @Override
+        public void postFrameCallback(Choreographer.FrameCallback callback) {
+            Choreographer.getInstance().postFrameCallback(callback);
+        }
+
+        @Override
+        public void removeFrameCallback(Choreographer.FrameCallback callback) {
+            Choreographer.getInstance().removeFrameCallback(callback);
+        }
+    };
+
+    /**
+     * Runs the given callback once, on the next frame.
+     */
+    void postFrameCallback(Choreographer.FrameCallback callback);
+
+    void removeFrameCallback(Choreographer.FrameCallback callback);
+
+}
@@ -0,0 +1,118 @@
+package me.juangoncalves.switchview;
+
+/**
+ * Maps the left coordinate of the inner shape to its width and to the color of the container.
+ * <p>
+ * Both mappings are lines (y = mx + b) going from the left limit of the inner shape, where it is
+ * a full circle over a fully opaque background, to its right limit, where it is a straight line
+ * over a background with the minimum opacity. Their coefficients only depend on the layout and on
+ * the container color, so their slopes are computed once in {@link #update} / {@link #setColor} and
+ * every position is then resolved with a single multiply-add.
+ */
+class SwitchGeometry {
+
+    private final float minInnerShapeWidth;
+    private final int minOpacity;
+
+    private float containerWidth = Float.NaN;
+    private float padding;
+    private float containerCenter;
+    private float minLeft;
+    private float maxLeft;
+    private float fullInnerCircleDiameter;
+    private float widthSlope;
+
+    private int colorRgb;
+    private int fullOpacity = 0xFF;
+    private float opacitySlope;
+
+    SwitchGeometry(float minInnerShapeWidth, int minOpacity) {
+        this.minInnerShapeWidth = minInnerShapeWidth;
+        this.minOpacity = minOpacity;
+    }
+
+    /**
+     * Recomputes the limits for the given container bounds, and the width / opacity lines when
+     * its size changed (they don't change when the container just moves).
+     *
+     * @param padding space between the container and the inner shape.
+     * @param fullInnerCircleDiameter diameter of the inner shape when it is completely expanded.
+     */
+    void update(float containerLeft, float containerRight, float padding, float fullInnerCircleDiameter) {
+        float containerWidth = containerRight - containerLeft;
+        boolean resized = containerWidth != this.containerWidth
+                || padding != this.padding
+                || fullInnerCircleDiameter != this.fullInnerCircleDiameter;
+        this.containerWidth = containerWidth;
+        this.padding = padding;
+        this.fullInnerCircleDiameter = fullInnerCircleDiameter;
+        containerCenter = (containerLeft + containerRight) / 2;
+        minLeft = containerLeft + padding;
+        maxLeft = containerRight - padding - fullInnerCircleDiameter / 2;
+        if (resized) {
+            updateWidthLine();
+            updateOpacityLine();
+        }
+    }
+
+    void setColor(int color) {
+        colorRgb = color & 0x00FFFFFF;
+        fullOpacity = color >>> 24;
+        updateOpacityLine();
+    }
+
+    float getContainerCenter() {
+        return containerCenter;
+    }
+
+    float getMinLeft() {
+        return minLeft;
+    }
+
+    float getMaxLeft() {
+        return maxLeft;
+    }
+
+    float getFullInnerCircleDiameter() {
+        return fullInnerCircleDiameter;
+    }
+
+    float clampPosition(float left) {
+        return left < minLeft ? minLeft : (left > maxLeft ? maxLeft : left);
+    }
+
+    float widthForPosition(float left) {
+        float width = widthSlope * (left - minLeft) + fullInnerCircleDiameter;
+        if (width < minInnerShapeWidth) return minInnerShapeWidth;
+        if (width > fullInnerCircleDiameter) return fullInnerCircleDiameter;
+        return width;
+    }
+
+    int opacityForPosition(float left) {
+        int opacity = (int) (opacitySlope * (left - minLeft) + fullOpacity);
+        int lower = Math.min(minOpacity, fullOpacity);
+        int upper = Math.max(minOpacity, fullOpacity);
+        return opacity < lower ? lower : (opacity > upper ? upper : opacity);
+    }
+
+    int colorForPosition(float left) {
+        return colorForOpacity(opacityForPosition(left));
+    }
+
+    int colorForOpacity(int opacity) {
+        return (opacity << 24) | colorRgb;
+    }
+
+    private void updateWidthLine() {
+        // Goes from the full circle diameter at minLeft to the minimum width at maxLeft
+        float range = maxLeft - minLeft;
+        widthSlope = range > 0 ? (minInnerShapeWidth - fullInnerCircleDiameter) / range : 0f;
+    }
+
+    private void updateOpacityLine() {
+        // Goes from the full opacity at minLeft to the minimum opacity at maxLeft
+        float range = maxLeft - minLeft;
+        opacitySlope = range > 0 ? (minOpacity - fullOpacity) / range : 0f;
+    }
+
+}
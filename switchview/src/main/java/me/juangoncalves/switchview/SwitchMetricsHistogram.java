@@ -0,0 +1,95 @@
+package me.juangoncalves.switchview;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * Counts values into fixed buckets, so any number of them can be recorded without allocating or
+ * growing. Bucket {@code i} holds the values up to {@link #getUpperBound(int)} that don't fit in
+ * the previous bucket, and an extra last bucket holds the values above every bound.
+ */
+public final class SwitchMetricsHistogram {
+
+    private final long[] upperBounds;
+    private final long[] counts;
+    private long totalCount;
+    private long sum;
+
+    /**
+     * @param upperBounds inclusive upper bound of every bucket, in ascending order.
+     */
+    public SwitchMetricsHistogram(@NonNull long... upperBounds) {
+        for (int i = 1; i < upperBounds.length; i++) {
+            if (upperBounds[i] <= upperBounds[i - 1]) {
+                throw new IllegalArgumentException("Bucket bounds must be ascending: " + Arrays.toString(upperBounds));
+            }
+        }
+        this.upperBounds = upperBounds.clone();
+        this.counts = new long[upperBounds.length + 1];
+    }
+
+    public void record(long value) {
+        int bucket = Arrays.binarySearch(upperBounds, value);
+        if (bucket < 0) {
+            bucket = -bucket - 1;
+        }
+        counts[bucket]++;
+        totalCount++;
+        sum += value;
+    }
+
+    /**
+     * @return number of buckets, including the one for the values above every bound.
+     */
+    public int getBucketCount() {
+        return counts.length;
+    }
+
+    /**
+     * @return inclusive upper bound of the given bucket, {@link Long#MAX_VALUE} for the last one.
+     */
+    public long getUpperBound(int bucket) {
+        return bucket < upperBounds.length ? upperBounds[bucket] : Long.MAX_VALUE;
+    }
+
+    public long getCount(int bucket) {
+        return counts[bucket];
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    public long getSum() {
+        return sum;
+    }
+
+    /**
+     * @param percentile between 0 and 100.
+     * @return upper bound of the bucket containing the given percentile, or 0 if nothing was
+     * recorded.
+     */
+    public long getPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Invalid percentile: " + percentile);
+        }
+        if (totalCount == 0) return 0L;
+        long rank = Math.max(1L, (long) Math.ceil(totalCount * percentile / 100));
+        long accumulated = 0L;
+        for (int i = 0; i < counts.length; i++) {
+            accumulated += counts[i];
+            if (accumulated >= rank) {
+                return getUpperBound(i);
+            }
+        }
+        return getUpperBound(counts.length - 1);
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0L);
+        totalCount = 0L;
+        sum = 0L;
+    }
+
+}
@@ -0,0 +1,33 @@
+package me.juangoncalves.switchview;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Receives timing information about a switch, see
+ * {@link BllocSwitchView#setMetricsListener(SwitchMetricsListener)}. Callbacks are made on the
+ * main thread, in the middle of drawing or processing a frame, so they should only record the
+ * values. {@link SwitchMetricsRecorder} aggregates them into histograms.
+ */
+public interface SwitchMetricsListener {
+
+    /**
+     * Called when the first frame responding to a touch event is drawn. Only the events redrawing
+     * the switch are measured: a touch down doesn't change how it looks.
+     *
+     * @param action        either {@link android.view.MotionEvent#ACTION_MOVE} (the move starting
+     *                      a drag, with the inner shape following the finger) or
+     *                      {@link android.view.MotionEvent#ACTION_UP} (the switch toggling or
+     *                      settling).
+     * @param latencyMillis time since the event was generated, based on its event time.
+     */
+    void onInputResponse(int action, long latencyMillis);
+
+    /**
+     * Called when a transition between states ends, either reaching its final state or being
+     * cancelled.
+     *
+     * @param metrics reused between transitions, it must not be kept after returning.
+     */
+    void onTransitionEnd(@NonNull TransitionMetrics metrics);
+
+}
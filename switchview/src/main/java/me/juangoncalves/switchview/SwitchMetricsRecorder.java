@@ -0,0 +1,95 @@
+package me.juangoncalves.switchview;
+
+import android.view.MotionEvent;
+
+import androidx.annotation.NonNull;
+
+/**
+ * A {@link SwitchMetricsListener} aggregating the metrics of one or more switches into
+ * histograms, meant to be read and reset periodically to export them elsewhere.
+ */
+public class SwitchMetricsRecorder implements SwitchMetricsListener {
+
+    private static final long[] LATENCY_BOUNDS_MILLIS = {8, 16, 24, 32, 48, 64, 96, 128, 192, 256, 512};
+    private static final long[] DURATION_BOUNDS_MILLIS = {100, 150, 200, 250, 300, 400, 500, 750, 1000};
+    private static final long[] FRAME_COUNT_BOUNDS = {0, 1, 2, 4, 8, 12, 16, 24, 32, 48, 64};
+
+    private final SwitchMetricsHistogram dragStartLatency = new SwitchMetricsHistogram(LATENCY_BOUNDS_MILLIS);
+    private final SwitchMetricsHistogram touchUpLatency = new SwitchMetricsHistogram(LATENCY_BOUNDS_MILLIS);
+    private final SwitchMetricsHistogram transitionDuration = new SwitchMetricsHistogram(DURATION_BOUNDS_MILLIS);
+    private final SwitchMetricsHistogram framesPerTransition = new SwitchMetricsHistogram(FRAME_COUNT_BOUNDS);
+    private final SwitchMetricsHistogram jankyFramesPerTransition = new SwitchMetricsHistogram(FRAME_COUNT_BOUNDS);
+    private long transitionCount;
+    private long cancelledTransitionCount;
+
+    @Override
+    public void onInputResponse(int action, long latencyMillis) {
+        if (action == MotionEvent.ACTION_MOVE) {
+            dragStartLatency.record(latencyMillis);
+        } else {
+            touchUpLatency.record(latencyMillis);
+        }
+    }
+
+    @Override
+    public void onTransitionEnd(@NonNull TransitionMetrics metrics) {
+        transitionCount++;
+        if (metrics.isCancelled()) {
+            cancelledTransitionCount++;
+        }
+        transitionDuration.record(metrics.getDurationMillis());
+        framesPerTransition.record(metrics.getFrameCount());
+        jankyFramesPerTransition.record(metrics.getJankyFrameCount());
+    }
+
+    /**
+     * @return time from the move starting a drag to the first frame with the inner shape following
+     * the finger.
+     */
+    @NonNull
+    public SwitchMetricsHistogram getDragStartLatency() {
+        return dragStartLatency;
+    }
+
+    /**
+     * @return time from a touch up to the first frame of the transition it started.
+     */
+    @NonNull
+    public SwitchMetricsHistogram getTouchUpLatency() {
+        return touchUpLatency;
+    }
+
+    @NonNull
+    public SwitchMetricsHistogram getTransitionDuration() {
+        return transitionDuration;
+    }
+
+    @NonNull
+    public SwitchMetricsHistogram getFramesPerTransition() {
+        return framesPerTransition;
+    }
+
+    @NonNull
+    public SwitchMetricsHistogram getJankyFramesPerTransition() {
+        return jankyFramesPerTransition;
+    }
+
+    public long getTransitionCount() {
+        return transitionCount;
+    }
+
+    public long getCancelledTransitionCount() {
+        return cancelledTransitionCount;
+    }
+
+    public void reset() {
+        dragStartLatency.reset();
+        touchUpLatency.reset();
+        transitionDuration.reset();
+        framesPerTransition.reset();
+        jankyFramesPerTransition.reset();
+        transitionCount = 0L;
+        cancelledTransitionCount = 0L;
+    }
+
+}
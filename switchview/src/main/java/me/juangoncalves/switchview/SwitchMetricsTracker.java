@@ -0,0 +1,89 @@
+package me.juangoncalves.switchview;
+
+/**
+ * Measures the transitions of a switch and reports them to a {@link SwitchMetricsListener}.
+ * <p>
+ * Only created while a listener is attached, so a switch without one doesn't pay for any of the
+ * measurements. Times are taken by the caller to keep it independent from the Android clocks:
+ * event and draw times in uptime milliseconds, frame times from the Choreographer.
+ */
+final class SwitchMetricsTracker {
+
+    static final long DEFAULT_FRAME_PERIOD_NANOS = 16_666_667L;
+
+    private static final int NO_INPUT = -1;
+
+    private final SwitchMetricsListener listener;
+    private final TransitionMetrics metrics = new TransitionMetrics();
+    private long framePeriodNanos = DEFAULT_FRAME_PERIOD_NANOS;
+    private int pendingInputAction = NO_INPUT;
+    private long pendingInputTime;
+    private boolean running;
+    private boolean transitionInputPending;
+    private long transitionStartTime;
+    private long lastFrameTimeNanos;
+
+    SwitchMetricsTracker(SwitchMetricsListener listener) {
+        this.listener = listener;
+    }
+
+    SwitchMetricsListener getListener() {
+        return listener;
+    }
+
+    /**
+     * @param framePeriodNanos time between two vsync signals of the display showing the switch.
+     */
+    void setFramePeriodNanos(long framePeriodNanos) {
+        if (framePeriodNanos > 0) {
+            this.framePeriodNanos = framePeriodNanos;
+        }
+    }
+
+    /**
+     * Registers a touch event whose response is measured on the next draw.
+     */
+    void onInputEvent(int action, long eventTimeMillis) {
+        pendingInputAction = action;
+        pendingInputTime = eventTimeMillis;
+    }
+
+    void onTransitionStart(long nowMillis) {
+        metrics.reset();
+        running = true;
+        transitionInputPending = pendingInputAction != NO_INPUT;
+        transitionStartTime = nowMillis;
+    }
+
+    void onFrame(long frameTimeNanos) {
+        if (!running) return;
+        metrics.frameCount++;
+        // Allow half a period of jitter before treating a frame as a missed vsync
+        if (metrics.frameCount > 1 && frameTimeNanos - lastFrameTimeNanos > framePeriodNanos * 3 / 2) {
+            metrics.jankyFrameCount++;
+        }
+        lastFrameTimeNanos = frameTimeNanos;
+    }
+
+    void onDraw(long nowMillis) {
+        if (pendingInputAction == NO_INPUT) return;
+        long latency = nowMillis - pendingInputTime;
+        int action = pendingInputAction;
+        pendingInputAction = NO_INPUT;
+        if (running && transitionInputPending) {
+            metrics.inputLatencyMillis = latency;
+            transitionInputPending = false;
+        }
+        listener.onInputResponse(action, latency);
+    }
+
+    void onTransitionEnd(boolean cancelled, long nowMillis) {
+        if (!running) return;
+        running = false;
+        transitionInputPending = false;
+        metrics.cancelled = cancelled;
+        metrics.durationMillis = nowMillis - transitionStartTime;
+        listener.onTransitionEnd(metrics);
+    }
+
+}
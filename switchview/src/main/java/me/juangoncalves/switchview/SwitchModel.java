@@ -0,0 +1,187 @@
+package me.juangoncalves.switchview;
+
+/**
+ * State of a switch: whether it is checked and where its inner shape currently is, plus the
+ * transitions between both states (dragging, settling and toggling).
+ * <p>
+ * It doesn't depend on any Android class, the drawable translates its position into shapes and
+ * colors through the {@link SwitchGeometry} and schedules the frames that advance it.
+ */
+class SwitchModel {
+
+    private final SwitchGeometry geometry;
+    private final SwitchAnimator animator;
+    private boolean checked;
+    private float position;
+    private float pendingDrag;
+    private float predictionOffset;
+    private boolean predictionChanged;
+
+    SwitchModel(SwitchGeometry geometry, SwitchAnimator animator, boolean checked) {
+        this.geometry = geometry;
+        this.animator = animator;
+        this.checked = checked;
+    }
+
+    boolean isChecked() {
+        return checked;
+    }
+
+    /**
+     * @return the left coordinate of the inner shape.
+     */
+    float getPosition() {
+        return position;
+    }
+
+    /**
+     * @return the left coordinate where the inner shape is drawn, ahead of its position while a
+     * drag is being predicted.
+     */
+    float getDrawnPosition() {
+        return predictionOffset == 0f ? position : geometry.clampPosition(position + predictionOffset);
+    }
+
+    boolean isAnimating() {
+        return animator.isRunning();
+    }
+
+    /**
+     * @return true if the switch is not moving and is on the final position of the given state.
+     */
+    boolean isRestingOn(boolean checked) {
+        return this.checked == checked
+                && !animator.isRunning()
+                && pendingDrag == 0f
+                && predictionOffset == 0f
+                && position == restingPosition(checked);
+    }
+
+    /**
+     * Animates the switch to the given state, holding it still during the given delay first.
+     * The current velocity is kept when retargeting a running transition, so it changes direction
+     * smoothly instead of jumping.
+     *
+     * @return true if a new transition was started, false if a running one was retargeted.
+     */
+    boolean animateToState(boolean checked, long startDelayNanos) {
+        // Start from the movement not rendered yet, e.g. when a drag is cancelled
+        applyPendingDrag();
+        adoptPrediction();
+        this.checked = checked;
+        float velocity = animator.isRunning() ? animator.getVelocity() : 0f;
+        return startAnimator(velocity, restingPosition(checked), startDelayNanos);
+    }
+
+    /**
+     * Moves the switch to the given state without animating it, stopping any transition.
+     */
+    void jumpToState(boolean checked) {
+        stop();
+        this.checked = checked;
+        position = restingPosition(checked);
+    }
+
+    /**
+     * Stops the running transition and discards any pending drag movement.
+     *
+     * @return true if a transition was running.
+     */
+    boolean stop() {
+        boolean wasAnimating = animator.isRunning();
+        animator.cancel();
+        pendingDrag = 0f;
+        adoptPrediction();
+        return wasAnimating;
+    }
+
+    /**
+     * Accumulates a horizontal movement, applied on the next {@link #doFrame(long)}.
+     */
+    void dragBy(float distance) {
+        pendingDrag += distance;
+    }
+
+    /**
+     * Draws the inner shape the given distance ahead of its position from the next
+     * {@link #doFrame(long)}, until the drag ends.
+     *
+     * @return true if the offset changed.
+     */
+    boolean setPredictionOffset(float offset) {
+        if (predictionOffset == offset) return false;
+        predictionOffset = offset;
+        predictionChanged = true;
+        return true;
+    }
+
+    /**
+     * Ends a drag by animating the switch to its closest state, or to the state in the direction
+     * of the fling if the release velocity is fast enough.
+     *
+     * @return true if a new transition was started, false if a running one was retargeted.
+     */
+    boolean settle(float releaseVelocity, float minimumFlingVelocity) {
+        // The decision must take into account the movement not rendered yet
+        applyPendingDrag();
+        boolean moveToStart;
+        if (Math.abs(releaseVelocity) >= minimumFlingVelocity) {
+            moveToStart = releaseVelocity < 0;
+        } else {
+            float innerShapeCenter = position + geometry.widthForPosition(position) / 2;
+            moveToStart = innerShapeCenter <= geometry.getContainerCenter();
+        }
+        checked = moveToStart;
+        // Continue from where the inner shape was drawn to avoid jumping back
+        adoptPrediction();
+        return startAnimator(releaseVelocity, restingPosition(moveToStart), 0L);
+    }
+
+    /**
+     * Applies the pending drag movement and advances the running transition.
+     *
+     * @return true if the inner shape moved.
+     */
+    boolean doFrame(long frameTimeNanos) {
+        boolean moved = applyPendingDrag() || predictionChanged;
+        predictionChanged = false;
+        if (animator.isRunning()) {
+            animator.step(frameTimeNanos);
+            // An underdamped spring may overshoot, but the inner shape never leaves the container
+            position = geometry.clampPosition(animator.getPosition());
+            moved = true;
+        }
+        return moved;
+    }
+
+    /**
+     * @return true if there is a transition or a drag movement waiting for the next frame.
+     */
+    boolean needsFrame() {
+        return animator.isRunning() || pendingDrag != 0f || predictionChanged;
+    }
+
+    private boolean applyPendingDrag() {
+        if (pendingDrag == 0f) return false;
+        position = geometry.clampPosition(position + pendingDrag);
+        pendingDrag = 0f;
+        return true;
+    }
+
+    private void adoptPrediction() {
+        position = getDrawnPosition();
+        predictionOffset = 0f;
+        predictionChanged = false;
+    }
+
+    private boolean startAnimator(float velocity, float target, long startDelayNanos) {
+        boolean wasAnimating = animator.isRunning();
+        animator.start(position, velocity, target, startDelayNanos);
+        return !wasAnimating;
+    }
+
+    private float restingPosition(boolean checked) {
+        return checked ? geometry.getMinLeft() : geometry.getMaxLeft();
+    }
+
+}
@@ -0,0 +1,225 @@
+package me.juangoncalves.switchview;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.RecordingCanvas;
+import android.graphics.RectF;
+import android.graphics.RenderNode;
+import android.os.Build;
+
+import androidx.annotation.RequiresApi;
+
+/**
+ * Keeps the container and the inner shape of the switch in render nodes, used by
+ * {@link BllocSwitchDrawable#RENDER_MODE_RENDER_NODE}, so moving the inner shape only changes
+ * properties of the nodes and doesn't record anything.
+ * <p>
+ * The container is only recorded when its bounds, color or color filter change, its opacity is
+ * applied as the alpha of its node. The inner shape is recorded once for a set of widths, from
+ * the full circle down to the minimum width, each one a {@link #MIN_WIDTH_SCALE} fraction of the
+ * previous one. All of them are drawn in the node of the inner shape, which is moved with a
+ * translation, but only the narrowest one that is at least as wide as the inner shape is visible,
+ * scaled horizontally to its width. Scaling thins the sides of the stroke along with the shape, so
+ * it is kept within that fraction, and the resting widths are drawn unscaled.
+ */
+@RequiresApi(Build.VERSION_CODES.Q)
+final class SwitchRenderNodes {
+
+    // Scale applied at most to the recorded widths, thinning the sides of the stroke by up to 10%
+    static final float MIN_WIDTH_SCALE = 0.9f;
+
+    private final RenderNode containerNode = new RenderNode("BllocSwitchContainer");
+    private final RenderNode innerShapeNode = new RenderNode("BllocSwitchInnerShape");
+    private final Paint containerPaint = new Paint();
+    // Recorded widths of the inner shape, from the widest to the narrowest
+    private RenderNode[] widthNodes = new RenderNode[0];
+    private float[] widths = new float[0];
+    private int visibleWidth = -1;
+    private boolean containerDirty = true;
+    private boolean innerShapeDirty = true;
+    // Whether the nodes are drawn by the display list of the host, so changing their properties
+    // is enough to move the inner shape
+    private boolean drawn;
+    private int recordings;
+
+    SwitchRenderNodes() {
+        // The stroke of the inner shape goes beyond the bounds of its node
+        innerShapeNode.setClipToBounds(false);
+    }
+
+    void invalidateContainer() {
+        containerDirty = true;
+    }
+
+    void invalidateInnerShape() {
+        innerShapeDirty = true;
+    }
+
+    /**
+     * @return whether the switch can be moved by {@link #update} alone, without drawing it again.
+     */
+    boolean canUpdateWithoutDrawing() {
+        return drawn && !containerDirty && !innerShapeDirty;
+    }
+
+    /**
+     * Called when the switch is drawn without the nodes, e.g. on a canvas that isn't hardware
+     * accelerated.
+     */
+    void onDrawnWithoutNodes() {
+        drawn = false;
+    }
+
+    /**
+     * @param canvas              must be hardware accelerated.
+     * @param sourcePaint         container paint, its color is replaced by the opaque color.
+     * @param opaqueColor         container color with the opacity it has in the checked state.
+     * @param fullInnerShapeWidth width of the inner shape when it is a full circle.
+     * @param minInnerShapeWidth  narrowest width of the inner shape.
+     */
+    void draw(Canvas canvas, RectF containerRect, float cornerRadius, Paint sourcePaint, int opaqueColor,
+              RectF innerShapeRect, float fullInnerShapeWidth, float minInnerShapeWidth, Paint innerShapePaint) {
+        if (containerDirty) {
+            recordContainer(containerRect, cornerRadius, sourcePaint, opaqueColor);
+        }
+        if (innerShapeDirty) {
+            recordInnerShape(innerShapeRect.height(), fullInnerShapeWidth, minInnerShapeWidth, innerShapePaint);
+        }
+        update(sourcePaint, opaqueColor, innerShapeRect);
+        canvas.drawRenderNode(containerNode);
+        canvas.drawRenderNode(innerShapeNode);
+        drawn = true;
+    }
+
+    /**
+     * Moves and resizes the inner shape, and applies the opacity of the container, through the
+     * properties of the nodes.
+     */
+    void update(Paint sourcePaint, int opaqueColor, RectF innerShapeRect) {
+        int opaqueAlpha = opaqueColor >>> 24;
+        int currentAlpha = sourcePaint.getAlpha();
+        containerNode.setAlpha(opaqueAlpha == 0 ? 0f : Math.min(1f, (float) currentAlpha / opaqueAlpha));
+
+        innerShapeNode.setTranslationX(innerShapeRect.left);
+        innerShapeNode.setTranslationY(innerShapeRect.top);
+        float width = innerShapeRect.width();
+        int index = widthIndex(width);
+        if (index != visibleWidth) {
+            if (visibleWidth >= 0) {
+                widthNodes[visibleWidth].setAlpha(0f);
+            }
+            widthNodes[index].setAlpha(1f);
+            visibleWidth = index;
+        }
+        widthNodes[index].setScaleX(width / widths[index]);
+    }
+
+    /**
+     * @return how many times the nodes were recorded.
+     */
+    int getRecordings() {
+        return recordings;
+    }
+
+    /**
+     * @return where the inner shape is drawn, for the tests.
+     */
+    float getInnerShapeLeft() {
+        return innerShapeNode.getTranslationX();
+    }
+
+    /**
+     * @return the width the inner shape is drawn with, for the tests.
+     */
+    float getInnerShapeWidth() {
+        return visibleWidth >= 0 ? widths[visibleWidth] * widthNodes[visibleWidth].getScaleX() : 0f;
+    }
+
+    /**
+     * @return the horizontal scale of the visible width, for the tests.
+     */
+    float getInnerShapeScale() {
+        return visibleWidth >= 0 ? widthNodes[visibleWidth].getScaleX() : 1f;
+    }
+
+    /**
+     * @return index of the narrowest recorded width that is at least the given one.
+     */
+    private int widthIndex(float width) {
+        for (int i = widths.length - 1; i > 0; i--) {
+            if (widths[i] >= width) return i;
+        }
+        return 0;
+    }
+
+    private void recordContainer(RectF containerRect, float cornerRadius, Paint sourcePaint, int opaqueColor) {
+        containerPaint.set(sourcePaint);
+        containerPaint.setColor(opaqueColor);
+        int left = (int) Math.floor(containerRect.left);
+        int top = (int) Math.floor(containerRect.top);
+        containerNode.setPosition(left, top, (int) Math.ceil(containerRect.right), (int) Math.ceil(containerRect.bottom));
+        RecordingCanvas recordingCanvas = containerNode.beginRecording();
+        try {
+            recordingCanvas.drawRoundRect(
+                    containerRect.left - left, containerRect.top - top,
+                    containerRect.right - left, containerRect.bottom - top,
+                    cornerRadius, cornerRadius, containerPaint
+            );
+        } finally {
+            containerNode.endRecording();
+        }
+        containerDirty = false;
+        recordings++;
+    }
+
+    private void recordInnerShape(float height, float fullWidth, float minWidth, Paint innerShapePaint) {
+        int count = 1;
+        for (float width = fullWidth; width * MIN_WIDTH_SCALE > minWidth; width *= MIN_WIDTH_SCALE) {
+            count++;
+        }
+        if (fullWidth > minWidth) {
+            count++;
+        }
+        if (widthNodes.length != count) {
+            widthNodes = new RenderNode[count];
+            widths = new float[count];
+            for (int i = 0; i < count; i++) {
+                widthNodes[i] = new RenderNode("BllocSwitchInnerShapeWidth");
+                widthNodes[i].setClipToBounds(false);
+                widthNodes[i].setPivotX(0f);
+            }
+        }
+        float width = fullWidth;
+        for (int i = 0; i < count; i++) {
+            // The last width is the minimum one, so the inner shape rests unscaled on both sides
+            widths[i] = i == count - 1 ? minWidth : width;
+            recordWidth(widthNodes[i], widths[i], height, innerShapePaint);
+            widthNodes[i].setAlpha(0f);
+            width *= MIN_WIDTH_SCALE;
+        }
+        visibleWidth = -1;
+
+        innerShapeNode.setPosition(0, 0, (int) Math.ceil(fullWidth), (int) Math.ceil(height));
+        RecordingCanvas recordingCanvas = innerShapeNode.beginRecording();
+        try {
+            for (RenderNode widthNode : widthNodes) {
+                recordingCanvas.drawRenderNode(widthNode);
+            }
+        } finally {
+            innerShapeNode.endRecording();
+        }
+        innerShapeDirty = false;
+        recordings++;
+    }
+
+    private static void recordWidth(RenderNode node, float width, float height, Paint innerShapePaint) {
+        node.setPosition(0, 0, (int) Math.ceil(width), (int) Math.ceil(height));
+        RecordingCanvas recordingCanvas = node.beginRecording();
+        try {
+            recordingCanvas.drawArc(0, 0, width, height, 0, 360, true, innerShapePaint);
+        } finally {
+            node.endRecording();
+        }
+    }
+
+}
@@ -0,0 +1,22 @@
+package me.juangoncalves.switchview;
+
+/**
+ * Packs the state of a switch saved across configuration changes and process death into a
+ * single int, so it takes a fixed 4 bytes in the parcel.
+ */
+final class SwitchStateCodec {
+
+    private static final int FLAG_CHECKED = 1;
+
+    private SwitchStateCodec() {
+    }
+
+    static int encode(boolean checked) {
+        return checked ? FLAG_CHECKED : 0;
+    }
+
+    static boolean decodeChecked(int state) {
+        return (state & FLAG_CHECKED) != 0;
+    }
+
+}
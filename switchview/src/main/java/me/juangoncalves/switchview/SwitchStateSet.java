@@ -0,0 +1,266 @@
+package me.juangoncalves.switchview;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * The checked state of any number of switches identified by small, non-negative ids, kept one bit
+ * per switch. Switches never set are unchecked.
+ * <p>
+ * An id must stay with its item for as long as the set is used, so adapter positions only work for
+ * lists that never change. Items with stable ids of their own (e.g. database ids) must be mapped by
+ * the caller to ids assigned in order from 0, keeping the set as small as the list.
+ * <p>
+ * Meant to hold the state of long lists outside of the views: recycled rows are bound with
+ * {@link #bind(BllocSwitchView, int)}, and the whole set is saved as a single long array instead
+ * of a saved state per view. Changes made through the set (not through bound switches, which
+ * already show them) are tracked as dirty, so an adapter can refresh only those rows with
+ * {@link #nextDirtyId(int)}.
+ */
+public class SwitchStateSet implements Parcelable {
+
+    private static final int ADDRESS_BITS_PER_WORD = 6;
+    private static final int BITS_PER_WORD = 1 << ADDRESS_BITS_PER_WORD;
+    private static final long WORD_MASK = 0xFFFFFFFFFFFFFFFFL;
+
+    private long[] words;
+    private long[] dirtyWords;
+
+    public SwitchStateSet() {
+        this(BITS_PER_WORD);
+    }
+
+    /**
+     * @param expectedSize number of switches, to avoid growing the set while it's filled.
+     */
+    public SwitchStateSet(int expectedSize) {
+        this(new long[wordIndex(Math.max(expectedSize, 1) - 1) + 1]);
+    }
+
+    private SwitchStateSet(long[] words) {
+        this.words = words;
+        this.dirtyWords = new long[words.length];
+    }
+
+    public boolean isChecked(int id) {
+        checkId(id);
+        int wordIndex = wordIndex(id);
+        return wordIndex < words.length && (words[wordIndex] & (1L << id)) != 0;
+    }
+
+    public void setChecked(int id, boolean checked) {
+        setChecked(id, checked, true);
+    }
+
+    public void toggle(int id) {
+        setChecked(id, !isChecked(id));
+    }
+
+    /**
+     * Sets the state of every switch from {@code fromId} (inclusive) to {@code toId} (exclusive).
+     */
+    public void setCheckedRange(int fromId, int toId, boolean checked) {
+        checkId(fromId);
+        if (toId < fromId) {
+            throw new IndexOutOfBoundsException("fromId: " + fromId + " > toId: " + toId);
+        }
+        if (fromId == toId) return;
+        int startWord = wordIndex(fromId);
+        int endWord = wordIndex(toId - 1);
+        if (checked) {
+            ensureCapacity(endWord + 1);
+        } else {
+            endWord = Math.min(endWord, words.length - 1);
+        }
+        for (int i = startWord; i <= endWord; i++) {
+            long mask = WORD_MASK;
+            if (i == startWord) mask &= WORD_MASK << fromId;
+            if (i == wordIndex(toId - 1)) mask &= WORD_MASK >>> -toId;
+            long previous = words[i];
+            words[i] = checked ? previous | mask : previous & ~mask;
+            dirtyWords[i] |= previous ^ words[i];
+        }
+    }
+
+    /**
+     * Unchecks every switch.
+     */
+    public void clear() {
+        for (int i = 0; i < words.length; i++) {
+            dirtyWords[i] |= words[i];
+            words[i] = 0L;
+        }
+    }
+
+    public int getCheckedCount() {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * @return the first id from the given one (inclusive) whose state changed through the set since
+     * the last {@link #clearDirty()}, or -1 if there is none.
+     */
+    public int nextDirtyId(int fromId) {
+        checkId(fromId);
+        int wordIndex = wordIndex(fromId);
+        if (wordIndex >= dirtyWords.length) return -1;
+        long word = dirtyWords[wordIndex] & (WORD_MASK << fromId);
+        while (true) {
+            if (word != 0) {
+                return wordIndex * BITS_PER_WORD + Long.numberOfTrailingZeros(word);
+            }
+            if (++wordIndex == dirtyWords.length) return -1;
+            word = dirtyWords[wordIndex];
+        }
+    }
+
+    public boolean hasDirtyIds() {
+        for (long word : dirtyWords) {
+            if (word != 0L) return true;
+        }
+        return false;
+    }
+
+    public void clearDirty() {
+        Arrays.fill(dirtyWords, 0L);
+    }
+
+    /**
+     * Moves the given switch to the state of the given id, without animating it, and keeps the
+     * state of the id up to date when the switch changes. Binding a switch again, e.g. when a row
+     * is recycled, replaces its previous id.
+     * <p>
+     * The checked change listener of the switch keeps being notified, but a switch is bound to a
+     * single item: binding it replaces a binding made by another set or a
+     * {@link PersistedSwitchBinding}.
+     */
+    public void bind(@NonNull BllocSwitchView view, int id) {
+        checkId(id);
+        ViewBinding binding = (ViewBinding) SwitchBinding.get(view, this);
+        if (binding == null) {
+            binding = new ViewBinding();
+        }
+        binding.id = id;
+        SwitchBinding.bind(view, binding, isChecked(id));
+    }
+
+    public void unbind(@NonNull BllocSwitchView view) {
+        SwitchBinding.unbind(view, this);
+    }
+
+    /**
+     * @return the states as little-endian 64 bit words, without the trailing unchecked ones.
+     */
+    @NonNull
+    public byte[] toByteArray() {
+        int usedWords = usedWords();
+        byte[] bytes = new byte[usedWords * 8];
+        for (int i = 0; i < usedWords; i++) {
+            long word = words[i];
+            for (int b = 0; b < 8; b++) {
+                bytes[i * 8 + b] = (byte) (word >>> (b * 8));
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * @param bytes states written by {@link #toByteArray()}.
+     */
+    @NonNull
+    public static SwitchStateSet fromByteArray(@NonNull byte[] bytes) {
+        if (bytes.length % 8 != 0) {
+            throw new IllegalArgumentException("Invalid length: " + bytes.length);
+        }
+        long[] words = new long[Math.max(bytes.length / 8, 1)];
+        for (int i = 0; i < bytes.length; i++) {
+            words[i / 8] |= (bytes[i] & 0xFFL) << ((i % 8) * 8);
+        }
+        return new SwitchStateSet(words);
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeLongArray(Arrays.copyOf(words, usedWords()));
+    }
+
+    public static final Parcelable.Creator<SwitchStateSet> CREATOR = new Parcelable.Creator<SwitchStateSet>() {
+        public SwitchStateSet createFromParcel(Parcel in) {
+            long[] words = in.createLongArray();
+            return new SwitchStateSet(words.length > 0 ? words : new long[1]);
+        }
+
+        public SwitchStateSet[] newArray(int size) {
+            return new SwitchStateSet[size];
+        }
+    };
+
+    private void setChecked(int id, boolean checked, boolean markDirty) {
+        checkId(id);
+        int wordIndex = wordIndex(id);
+        if (wordIndex >= words.length) {
+            if (!checked) return;
+            ensureCapacity(wordIndex + 1);
+        }
+        long previous = words[wordIndex];
+        words[wordIndex] = checked ? previous | (1L << id) : previous & ~(1L << id);
+        if (markDirty) {
+            dirtyWords[wordIndex] |= previous ^ words[wordIndex];
+        }
+    }
+
+    private void ensureCapacity(int wordCount) {
+        if (wordCount <= words.length) return;
+        int newLength = Math.max(wordCount, words.length * 2);
+        words = Arrays.copyOf(words, newLength);
+        dirtyWords = Arrays.copyOf(dirtyWords, newLength);
+    }
+
+    private int usedWords() {
+        int usedWords = words.length;
+        while (usedWords > 0 && words[usedWords - 1] == 0L) {
+            usedWords--;
+        }
+        return usedWords;
+    }
+
+    private static int wordIndex(int id) {
+        return id >> ADDRESS_BITS_PER_WORD;
+    }
+
+    private static void checkId(int id) {
+        if (id < 0) {
+            throw new IndexOutOfBoundsException("id < 0: " + id);
+        }
+    }
+
+    private class ViewBinding extends SwitchBinding {
+
+        int id;
+
+        ViewBinding() {
+            super(SwitchStateSet.this);
+        }
+
+        @Override
+        void onCheckedChanged(boolean isChecked) {
+            // The switch already shows the change, so there is no need to refresh it
+            setChecked(id, isChecked, false);
+        }
+
+    }
+
+}
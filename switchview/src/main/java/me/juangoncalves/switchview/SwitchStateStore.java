@@ -0,0 +1,23 @@
+package me.juangoncalves.switchview;
+
+import androidx.annotation.NonNull;
+
+import java.util.Map;
+
+/**
+ * Storage behind a {@link PersistedSwitchBinding}, e.g. {@link SharedPreferencesSwitchStateStore}.
+ */
+public interface SwitchStateStore {
+
+    /**
+     * Called on the main thread when a switch is bound, so it should be answered from memory.
+     */
+    boolean isChecked(@NonNull String key, boolean defaultValue);
+
+    /**
+     * Called on a background thread, in order, with the final state of every switch changed since
+     * the previous write.
+     */
+    void write(@NonNull Map<String, Boolean> states);
+
+}
@@ -0,0 +1,61 @@
+package me.juangoncalves.switchview;
+
+/**
+ * Timing information of a single transition of the switch between its states.
+ */
+public final class TransitionMetrics {
+
+    int frameCount;
+    int jankyFrameCount;
+    long durationMillis;
+    long inputLatencyMillis = -1;
+    boolean cancelled;
+
+    TransitionMetrics() {
+    }
+
+    /**
+     * @return number of frames produced by the transition.
+     */
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * @return number of frames that arrived later than one vsync period after the previous one.
+     */
+    public int getJankyFrameCount() {
+        return jankyFrameCount;
+    }
+
+    /**
+     * @return time between the start of the transition and its end.
+     */
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    /**
+     * @return time between the touch event that started the transition and its first drawn frame,
+     * or -1 if it wasn't started by a touch event (or ended before being drawn).
+     */
+    public long getInputLatencyMillis() {
+        return inputLatencyMillis;
+    }
+
+    /**
+     * @return true if the transition was stopped before reaching its final state.
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    void reset() {
+        frameCount = 0;
+        jankyFrameCount = 0;
+        durationMillis = 0L;
+        inputLatencyMillis = -1;
+        cancelled = false;
+    }
+
+}
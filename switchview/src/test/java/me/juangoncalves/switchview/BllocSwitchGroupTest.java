@@ -0,0 +1,187 @@
+package me.juangoncalves.switchview;
+
+import android.graphics.Color;
+import android.graphics.RectF;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Drives the members of a group from a {@link ManualFrameClock}, so every frame is produced at a
+ * known time.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class BllocSwitchGroupTest {
+
+    private static final long FRAME_PERIOD_NANOS = 16_666_667L;
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+    // Frames allowed for the members to settle
+    private static final int MAX_FRAMES = 600;
+
+    private final ManualFrameClock frameClock = new ManualFrameClock();
+    private final ManualFrameClock memberFrameClock = new ManualFrameClock();
+    private BllocSwitchGroup group;
+    private BllocSwitchDrawable[] members;
+    private long frameTimeNanos;
+
+    @Before
+    public void setUp() {
+        group = new BllocSwitchGroup();
+        group.setFrameClock(frameClock);
+        members = new BllocSwitchDrawable[3];
+        for (int i = 0; i < members.length; i++) {
+            members[i] = new BllocSwitchDrawable(Color.BLACK, false, SwitchDimensions.forDensity(3f));
+            members[i].setBounds(0, 0, 144, 72);
+            members[i].setFrameClock(memberFrameClock);
+            group.add(members[i]);
+        }
+    }
+
+    @Test
+    public void setCheckedAll_postsASingleFrameCallbackForEveryMember() {
+        group.setCheckedAll(true, true);
+
+        assertEquals(1, frameClock.getPendingCallbackCount());
+        assertFalse(memberFrameClock.hasPendingFrame());
+        for (BllocSwitchDrawable member : members) {
+            assertTrue(member.isChecked());
+            assertFalse(member.isResting());
+        }
+    }
+
+    @Test
+    public void frames_advanceEveryMemberUntilTheySettle() {
+        group.setCheckedAll(true, true);
+        float[] startLeft = innerShapeLefts();
+
+        doFrame();
+        doFrame();
+        float[] movedLeft = innerShapeLefts();
+        for (int i = 0; i < members.length; i++) {
+            assertNotEquals("Member " + i, startLeft[i], movedLeft[i], 0f);
+        }
+
+        runUntilIdle();
+        for (BllocSwitchDrawable member : members) {
+            assertTrue(member.isResting());
+        }
+        assertFalse(frameClock.hasPendingFrame());
+    }
+
+    @Test
+    public void setCheckedAll_startsTheMembersInOrderOneStaggerDelayApart() {
+        long staggerDelayMillis = 100L;
+        group.setStaggerDelay(staggerDelayMillis);
+        long firstFrameTime = frameTimeNanos + FRAME_PERIOD_NANOS;
+        group.setCheckedAll(true, true);
+
+        long[] startTimes = new long[members.length];
+        float[] restingLeft = innerShapeLefts();
+        for (int frame = 0; frame < MAX_FRAMES && frameClock.hasPendingFrame(); frame++) {
+            doFrame();
+            float[] left = innerShapeLefts();
+            for (int i = 0; i < members.length; i++) {
+                if (startTimes[i] == 0L && left[i] != restingLeft[i]) {
+                    startTimes[i] = frameTimeNanos;
+                }
+            }
+        }
+
+        long staggerDelayNanos = staggerDelayMillis * NANOS_PER_MILLI;
+        for (int i = 0; i < members.length; i++) {
+            long expectedStart = firstFrameTime + i * staggerDelayNanos;
+            // The first frame of a member is the first one after its delay ends
+            assertTrue("Member " + i, startTimes[i] >= expectedStart);
+            assertTrue("Member " + i, startTimes[i] <= expectedStart + FRAME_PERIOD_NANOS);
+        }
+        for (BllocSwitchDrawable member : members) {
+            assertTrue(member.isResting());
+        }
+    }
+
+    @Test
+    public void setCheckedAll_skipsTheStaggerDelayOfTheMembersAlreadyInTheState() {
+        group.setStaggerDelay(100L);
+        members[0].jumpToState(true);
+        group.setCheckedAll(true, true);
+        float restingLeft = innerShapeLefts()[1];
+
+        doFrame();
+        doFrame();
+
+        assertNotEquals(restingLeft, innerShapeLefts()[1], 0f);
+        assertEquals(restingLeft, innerShapeLefts()[2], 0f);
+    }
+
+    @Test
+    public void setCheckedAll_withoutAnimating_jumpsWithoutFrames() {
+        group.setStaggerDelay(100L);
+
+        group.setCheckedAll(true, false);
+
+        for (BllocSwitchDrawable member : members) {
+            assertTrue(member.isChecked());
+            assertTrue(member.isResting());
+        }
+        assertFalse(frameClock.hasPendingFrame());
+    }
+
+    @Test
+    public void setCheckedAll_withoutAnimating_stopsTheRunningTransitions() {
+        group.setCheckedAll(true, true);
+        doFrame();
+
+        group.setCheckedAll(false, false);
+
+        for (BllocSwitchDrawable member : members) {
+            assertFalse(member.isChecked());
+            assertTrue(member.isResting());
+        }
+        assertFalse(frameClock.hasPendingFrame());
+    }
+
+    @Test
+    public void remove_handsTheFramesBackToTheMember() {
+        group.setCheckedAll(true, true);
+
+        for (BllocSwitchDrawable member : members) {
+            group.remove(member);
+        }
+
+        assertEquals(0, group.size());
+        assertFalse(frameClock.hasPendingFrame());
+        assertEquals(members.length, memberFrameClock.getPendingCallbackCount());
+    }
+
+    private void doFrame() {
+        frameTimeNanos += FRAME_PERIOD_NANOS;
+        frameClock.doFrame(frameTimeNanos);
+    }
+
+    private void runUntilIdle() {
+        for (int frame = 0; frame < MAX_FRAMES && frameClock.hasPendingFrame(); frame++) {
+            doFrame();
+        }
+    }
+
+    private float[] innerShapeLefts() {
+        RectF container = new RectF();
+        RectF innerShape = new RectF();
+        float[] lefts = new float[members.length];
+        for (int i = 0; i < members.length; i++) {
+            members[i].getShapeBounds(container, innerShape);
+            lefts[i] = innerShape.left;
+        }
+        return lefts;
+    }
+
+}
@@ -0,0 +1,69 @@
+package me.juangoncalves.switchview;
+
+import android.content.Context;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class BllocSwitchStyleTest {
+
+    private BllocSwitchStyle.Builder builder;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        builder = new BllocSwitchStyle.Builder(context);
+    }
+
+    @Test
+    public void setSpring_keepsTheSpring() {
+        BllocSwitchStyle style = builder.setSpring(400f, 0.5f).build();
+
+        assertEquals(400f, style.getStiffness(), 0f);
+        assertEquals(0.5f, style.getDampingRatio(), 0f);
+        assertEquals(400f, style.buildUpon().build().getStiffness(), 0f);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setSpring_rejectsZeroDamping() {
+        builder.setSpring(400f, 0f);
+    }
+
+    @Test
+    public void setSpring_rejectsNegativeOrUndefinedValues() {
+        assertRejected(400f, -1f);
+        assertRejected(400f, Float.NaN);
+        assertRejected(0f, 0.5f);
+        assertRejected(Float.NaN, 0.5f);
+    }
+
+    @Test
+    public void setSpring_leavesTheSpringAsItWasWhenRejected() {
+        builder.setSpring(400f, 0.5f);
+
+        assertRejected(400f, 0f);
+
+        BllocSwitchStyle style = builder.build();
+        assertEquals(400f, style.getStiffness(), 0f);
+        assertEquals(0.5f, style.getDampingRatio(), 0f);
+    }
+
+    private void assertRejected(float stiffness, float dampingRatio) {
+        try {
+            builder.setSpring(stiffness, dampingRatio);
+            fail("Accepted a stiffness of " + stiffness + " and a damping ratio of " + dampingRatio);
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+}
@@ -0,0 +1,55 @@
+package me.juangoncalves.switchview;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DragTrackerTest {
+
+    @Test
+    public void consumePendingMovement_accumulatesEverySample() {
+        DragTracker tracker = new DragTracker();
+        tracker.reset(100f, 0L);
+        tracker.addSample(102.5f, 4L);
+        tracker.addSample(101f, 8L);
+        tracker.addSample(107f, 12L);
+        assertTrue(tracker.hasPendingMovement());
+        assertEquals(7f, tracker.consumePendingMovement(), 0.0001f);
+        assertFalse(tracker.hasPendingMovement());
+        assertEquals(0f, tracker.consumePendingMovement(), 0f);
+    }
+
+    @Test
+    public void rebase_doesNotRegisterMovement() {
+        DragTracker tracker = new DragTracker();
+        tracker.reset(100f, 0L);
+        tracker.rebase(300f);
+        tracker.addSample(310f, 8L);
+        assertEquals(10f, tracker.consumePendingMovement(), 0f);
+    }
+
+    @Test
+    public void getVelocity_followsAConstantSpeed() {
+        DragTracker tracker = new DragTracker();
+        tracker.reset(0f, 0L);
+        // 2px every 4ms (120 Hz batched input) = 500 px/s
+        for (int i = 1; i <= 20; i++) {
+            tracker.addSample(i * 2f, i * 4L);
+        }
+        assertEquals(500f, tracker.getVelocity(), 0.01f);
+    }
+
+    @Test
+    public void getVelocity_mergesSamplesWithTheSameTimestamp() {
+        DragTracker tracker = new DragTracker();
+        tracker.reset(0f, 0L);
+        tracker.addSample(10f, 10L);
+        tracker.addSample(15f, 10L);
+        tracker.addSample(20f, 20L);
+        assertEquals(1000f, tracker.getVelocity(), 0.01f);
+        assertEquals(20f, tracker.consumePendingMovement(), 0f);
+    }
+
+}
@@ -0,0 +1,80 @@
+package me.juangoncalves.switchview;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GestureClassifierTest {
+
+    private static final float TOUCH_SLOP = 16f;
+    private static final long MAX_TAP_DURATION = 200L;
+
+    private GestureClassifier classifier;
+
+    @Before
+    public void setUp() {
+        classifier = new GestureClassifier(TOUCH_SLOP, MAX_TAP_DURATION);
+    }
+
+    @Test
+    public void quickReleaseWithinTheSlop_isATap() {
+        classifier.onDown(100f, 1000L);
+        assertFalse(classifier.onMove(110f));
+        assertFalse(classifier.onMove(92f));
+
+        assertFalse(classifier.isDragging());
+        assertTrue(classifier.isTap(1000L + MAX_TAP_DURATION));
+    }
+
+    @Test
+    public void slowRelease_isNotATap() {
+        classifier.onDown(100f, 1000L);
+
+        assertFalse(classifier.isTap(1001L + MAX_TAP_DURATION));
+    }
+
+    @Test
+    public void leavingTheSlop_startsADragOnce() {
+        classifier.onDown(100f, 1000L);
+        assertTrue(classifier.onMove(117f));
+        assertFalse(classifier.onMove(140f));
+        // Coming back to the down position doesn't turn it into a tap
+        assertFalse(classifier.onMove(100f));
+
+        assertTrue(classifier.isDragging());
+        assertFalse(classifier.isTap(1010L));
+    }
+
+    @Test
+    public void slopIsMeasuredFromTheDownPosition() {
+        classifier.onDown(100f, 1000L);
+        // Small steps that add up beyond the slop
+        for (float x = 102f; x <= 116f; x += 2f) {
+            assertFalse(classifier.onMove(x));
+        }
+        assertTrue(classifier.onMove(118f));
+    }
+
+    @Test
+    public void rebase_keepsTheDistanceAlreadyTravelled() {
+        classifier.onDown(100f, 1000L);
+        classifier.onMove(110f);
+        // A second pointer at 300 takes over
+        classifier.rebase(300f);
+        assertFalse(classifier.onMove(306f));
+        assertTrue(classifier.onMove(307f));
+    }
+
+    @Test
+    public void onDown_startsANewGesture() {
+        classifier.onDown(100f, 1000L);
+        classifier.onMove(200f);
+        classifier.onDown(100f, 2000L);
+
+        assertFalse(classifier.isDragging());
+        assertTrue(classifier.isTap(2100L));
+    }
+
+}
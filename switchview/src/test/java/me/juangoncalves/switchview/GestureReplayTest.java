@@ -0,0 +1,309 @@
+package me.juangoncalves.switchview;
+
+import android.content.Context;
+import android.graphics.RectF;
+import android.view.MotionEvent;
+import android.view.ViewConfiguration;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.LooperMode;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Replays gestures against a switch view on the JVM, with frames produced every vsync period at
+ * fixed times, so the thumb geometry of every frame is the same on every run.
+ * <p>
+ * Besides the synthetic gestures written here, every trace recorded with the demo app and placed
+ * under the {@code gestures} folder of the test resources is replayed, checking that the switch
+ * stays consistent and within the budgets. The time budgets apply to the median event and frame
+ * and are generous enough for a slow machine, so they catch work that grows out of proportion
+ * rather than measure the real cost.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28, qualifiers = "xxhdpi")
+@LooperMode(LooperMode.Mode.PAUSED)
+public class GestureReplayTest {
+
+    private static final int WIDTH = 144;
+    private static final int HEIGHT = 72;
+    private static final float Y = HEIGHT / 2f;
+    private static final long SAMPLE_INTERVAL = 8L;
+    private static final long EVENT_INTERVAL = 16L;
+    private static final String RECORDED_TRACES = "gestures";
+    // Generous budgets, meant to catch garbage added per event or frame rather than to measure
+    // the real cost, which is lower on a device than on the JVM
+    private static final long MAX_AVERAGE_ALLOCATED_BYTES_PER_EVENT = 1024L;
+    private static final long MAX_AVERAGE_ALLOCATED_BYTES_PER_FRAME = 256L;
+    private static final long MAX_MEDIAN_NANOS_PER_EVENT = 2_000_000L;
+    private static final long MAX_MEDIAN_NANOS_PER_FRAME = 2_000_000L;
+
+    private Context context;
+    private int touchSlop;
+    private float checkedLeft;
+    private float uncheckedLeft;
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        touchSlop = ViewConfiguration.get(context).getScaledTouchSlop();
+        checkedLeft = restingLeft(true);
+        uncheckedLeft = restingLeft(false);
+    }
+
+    @Test
+    public void tap_animatesToTheOtherState() {
+        GestureTrace trace = new GestureTrace(WIDTH, HEIGHT);
+        addEvent(trace, MotionEvent.ACTION_DOWN, 0L, 72f);
+        addEvent(trace, MotionEvent.ACTION_UP, 80L, 72f);
+
+        GestureReplayer.Replay replay = new GestureReplayer(newSwitch()).replay(trace);
+
+        assertTrue(replay.checked);
+        assertTrue(replay.idle);
+        assertTrue(replay.frameCount > 1);
+        assertWithinContainer(replay);
+        assertEquals(checkedLeft, replay.innerShape.left, 0f);
+    }
+
+    @Test
+    public void drag_movesTheThumbWithTheFingerOnEveryFrame() {
+        GestureTrace trace = new GestureTrace(WIDTH, HEIGHT);
+        float downX = 130f;
+        addEvent(trace, MotionEvent.ACTION_DOWN, 0L, downX);
+        long upTime = addDrag(trace, 0L, downX, 10f, 480L);
+        addEvent(trace, MotionEvent.ACTION_UP, upTime, 10f);
+
+        GestureReplayer.Replay replay = new GestureReplayer(newSwitch()).replay(trace);
+
+        int dragFrames = 0;
+        for (int frame = 0; frame < replay.frameCount && replay.frameTimeNanos[frame] <= millisToNanos(upTime); frame++) {
+            float distance = fingerPositionBefore(trace, replay.frameTimeNanos[frame]) - downX;
+            // Once the touch slop is exceeded the thumb catches up with the finger, including the
+            // movement made within the slop, and every sample delivered before a frame is applied
+            float expectedLeft = Math.abs(distance) <= touchSlop
+                    ? uncheckedLeft
+                    : Math.max(checkedLeft, uncheckedLeft + distance);
+            assertEquals("Frame " + frame, expectedLeft, replay.innerShapeLeft[frame], 0.01f);
+            dragFrames++;
+        }
+        // No frames are needed until the touch slop is exceeded
+        assertTrue(dragFrames > 10);
+        assertTrue(replay.checked);
+        assertTrue(replay.idle);
+        assertWithinContainer(replay);
+        assertEquals(checkedLeft, replay.innerShape.left, 0f);
+    }
+
+    @Test
+    public void slowDragBack_settlesOnTheClosestState() {
+        GestureTrace trace = new GestureTrace(WIDTH, HEIGHT);
+        addEvent(trace, MotionEvent.ACTION_DOWN, 0L, 120f);
+        long time = addDrag(trace, 0L, 120f, 90f, 480L);
+        time = addDrag(trace, time, 90f, 110f, 480L);
+        addEvent(trace, MotionEvent.ACTION_UP, time + 100L, 110f);
+
+        GestureReplayer.Replay replay = new GestureReplayer(newSwitch()).replay(trace);
+
+        assertFalse(replay.checked);
+        assertTrue(replay.idle);
+        assertWithinContainer(replay);
+        assertEquals(uncheckedLeft, replay.innerShape.left, 0f);
+    }
+
+    @Test
+    public void secondPointerTakingOver_continuesTheDragWithoutJumping() {
+        GestureTrace trace = new GestureTrace(WIDTH, HEIGHT);
+        addEvent(trace, MotionEvent.ACTION_DOWN, 0L, 130f);
+        long time = addDrag(trace, 0L, 130f, 100f, 240L);
+        int[] bothPointers = {0, 1};
+        time += SAMPLE_INTERVAL;
+        trace.addEvent(MotionEvent.ACTION_POINTER_DOWN | (1 << MotionEvent.ACTION_POINTER_INDEX_SHIFT), time,
+                bothPointers, new float[]{100f, 60f}, new float[]{Y, Y});
+        time += SAMPLE_INTERVAL;
+        trace.addEvent(MotionEvent.ACTION_POINTER_UP, time, bothPointers, new float[]{100f, 60f}, new float[]{Y, Y});
+        for (float x = 58f; x >= 52f; x -= 2f) {
+            time += SAMPLE_INTERVAL;
+            trace.addEvent(MotionEvent.ACTION_MOVE, time, new int[]{1}, new float[]{x}, new float[]{Y});
+        }
+        long upTime = time + 200L;
+        trace.addEvent(MotionEvent.ACTION_UP, upTime, new int[]{1}, new float[]{52f}, new float[]{Y});
+
+        GestureReplayer.Replay replay = new GestureReplayer(newSwitch()).replay(trace);
+
+        int lastDragFrame = 0;
+        for (int frame = 1; frame < replay.frameCount && replay.frameTimeNanos[frame] <= millisToNanos(upTime); frame++) {
+            lastDragFrame = frame;
+            // The first frame of the drag catches up with the touch slop
+            if (replay.innerShapeLeft[frame - 1] == uncheckedLeft) continue;
+            // Otherwise no frame moves the thumb further than the finger between two frames
+            float step = replay.innerShapeLeft[frame - 1] - replay.innerShapeLeft[frame];
+            assertTrue("Frame " + frame + " moved " + step, step >= 0f && step <= 8f);
+        }
+        assertEquals(uncheckedLeft - 38f, replay.innerShapeLeft[lastDragFrame], 0.01f);
+        assertFalse(replay.checked);
+        assertTrue(replay.idle);
+        assertWithinContainer(replay);
+    }
+
+    @Test
+    public void drag_staysWithinTheBudgets() {
+        GestureTrace trace = new GestureTrace(WIDTH, HEIGHT);
+        addEvent(trace, MotionEvent.ACTION_DOWN, 0L, 130f);
+        long time = addDrag(trace, 0L, 130f, 10f, 480L);
+        time = addDrag(trace, time, 10f, 130f, 480L);
+        addEvent(trace, MotionEvent.ACTION_UP, time, 130f);
+        GestureReplayer replayer = new GestureReplayer(newSwitch());
+        // Leave class loading and compilation out of the measurements
+        replayer.replay(trace);
+
+        assertWithinBudgets(replayer.replay(trace));
+    }
+
+    @Test
+    public void recordedTraces_replayConsistentlyWithinTheBudgets() throws IOException, URISyntaxException {
+        URL folder = getClass().getClassLoader().getResource(RECORDED_TRACES);
+        assertNotNull("Missing the " + RECORDED_TRACES + " folder of the test resources", folder);
+        File[] files = new File(folder.toURI()).listFiles();
+        assertNotNull(files);
+        int replayed = 0;
+        for (File file : files) {
+            if (!file.getName().endsWith(".bsgt")) continue;
+            GestureTrace trace = readTrace(file);
+            GestureReplayer replayer = new GestureReplayer(newSwitch());
+            replayer.replay(trace);
+
+            GestureReplayer.Replay replay = replayer.replay(trace);
+
+            assertTrue(file.getName(), replay.idle);
+            assertWithinContainer(replay);
+            assertWithinBudgets(replay);
+            replayed++;
+        }
+        assertTrue("No traces in the " + RECORDED_TRACES + " folder of the test resources", replayed > 0);
+    }
+
+    /**
+     * @return a switch resting on the unchecked state, so dragging it to the left checks it.
+     */
+    private BllocSwitchView newSwitch() {
+        return new BllocSwitchView(context, new BllocSwitchStyle.Builder(context).setChecked(false).build());
+    }
+
+    private float restingLeft(boolean checked) {
+        BllocSwitchView view = newSwitch();
+        view.getSwitchDrawable().setBounds(0, 0, WIDTH, HEIGHT);
+        view.jumpToState(checked);
+        RectF innerShape = new RectF();
+        view.getSwitchDrawable().getShapeBounds(new RectF(), innerShape);
+        return innerShape.left;
+    }
+
+    private static void addEvent(GestureTrace trace, int action, long time, float x) {
+        trace.addEvent(action, time, new int[]{0}, new float[]{x}, new float[]{Y});
+    }
+
+    /**
+     * Adds move events every {@link #EVENT_INTERVAL} moving the first pointer at a constant speed,
+     * with a sample every {@link #SAMPLE_INTERVAL} batched in them.
+     *
+     * @return time of the last event.
+     */
+    private static long addDrag(GestureTrace trace, long startTime, float fromX, float toX, long duration) {
+        int samplesPerEvent = (int) (EVENT_INTERVAL / SAMPLE_INTERVAL);
+        long time = startTime;
+        while (time < startTime + duration) {
+            int event = trace.appendEvent(MotionEvent.ACTION_MOVE, 1, samplesPerEvent - 1);
+            trace.setPointerId(event, 0, 0);
+            for (int pos = 0; pos < samplesPerEvent; pos++) {
+                time += SAMPLE_INTERVAL;
+                float x = fromX + (toX - fromX) * Math.min(1f, (float) (time - startTime) / duration);
+                trace.setSampleTime(event, pos, time);
+                trace.setCoords(event, pos, 0, x, Y);
+            }
+        }
+        return time;
+    }
+
+    /**
+     * @return position of the first pointer in the last event delivered before the given time.
+     */
+    private static float fingerPositionBefore(GestureTrace trace, long timeNanos) {
+        float x = trace.getX(0, 0);
+        for (int event = 0; event < trace.size() && millisToNanos(trace.getEventTime(event)) < timeNanos; event++) {
+            x = trace.getX(event, 0);
+        }
+        return x;
+    }
+
+    private static long millisToNanos(long millis) {
+        return millis * 1_000_000L;
+    }
+
+    static void assertWithinContainer(GestureReplayer.Replay replay) {
+        for (int frame = 0; frame < replay.frameCount; frame++) {
+            assertTrue("Frame " + frame, replay.innerShapeLeft[frame] >= replay.container.left);
+            assertTrue("Frame " + frame, replay.innerShapeRight[frame] <= replay.container.right);
+            assertTrue("Frame " + frame, replay.innerShapeLeft[frame] <= replay.innerShapeRight[frame]);
+        }
+    }
+
+    /**
+     * Checks the median time of the events and frames, and their average allocations where the
+     * JVM can measure them.
+     */
+    private static void assertWithinBudgets(GestureReplayer.Replay replay) {
+        long eventNanos = median(replay.eventNanos, replay.eventNanos.length);
+        long frameNanos = median(replay.frameNanos, replay.frameCount);
+        assertTrue("Nanos per event: " + eventNanos, eventNanos <= MAX_MEDIAN_NANOS_PER_EVENT);
+        assertTrue("Nanos per frame: " + frameNanos, frameNanos <= MAX_MEDIAN_NANOS_PER_FRAME);
+        if (!GestureReplayer.canMeasureAllocations()) return;
+        long eventBytes = 0L;
+        for (int event = 0; event < replay.eventAllocatedBytes.length; event++) {
+            eventBytes += replay.eventAllocatedBytes[event];
+        }
+        long frameBytes = 0L;
+        for (int frame = 0; frame < replay.frameCount; frame++) {
+            frameBytes += replay.frameAllocatedBytes[frame];
+        }
+        int events = Math.max(replay.eventAllocatedBytes.length, 1);
+        int frames = Math.max(replay.frameCount, 1);
+        assertTrue("Bytes per event: " + eventBytes / events, eventBytes / events <= MAX_AVERAGE_ALLOCATED_BYTES_PER_EVENT);
+        assertTrue("Bytes per frame: " + frameBytes / frames,
+                frameBytes / frames <= MAX_AVERAGE_ALLOCATED_BYTES_PER_FRAME + replay.invalidationAllocatedBytes);
+    }
+
+    private static long median(long[] values, int count) {
+        if (count == 0) return 0L;
+        long[] sorted = Arrays.copyOf(values, count);
+        Arrays.sort(sorted);
+        return sorted[count / 2];
+    }
+
+    private static GestureTrace readTrace(File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        try {
+            return GestureTrace.readFrom(in);
+        } finally {
+            in.close();
+        }
+    }
+
+}
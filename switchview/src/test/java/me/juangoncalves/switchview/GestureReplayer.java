@@ -0,0 +1,228 @@
+package me.juangoncalves.switchview;
+
+import android.graphics.RectF;
+import android.os.SystemClock;
+import android.view.InputDevice;
+import android.view.MotionEvent;
+import android.view.View;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Delivers the events of a {@link GestureTrace} to a switch view at their recorded times, producing
+ * the frames of the switch from a {@link ManualFrameClock} every vsync period in between, and
+ * records the thumb geometry of every frame along with the time spent and the memory allocated by
+ * every event and frame.
+ * <p>
+ * The motion events are built before measuring their dispatch, so only the work done by the view
+ * is measured. Allocations are only measured on JVMs able to count the bytes allocated by a thread,
+ * see {@link #canMeasureAllocations()}.
+ */
+final class GestureReplayer {
+
+    static final long FRAME_PERIOD_NANOS = 16_666_667L;
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+    // Frames allowed after the last event for the switch to settle
+    private static final int MAX_IDLE_FRAMES = 600;
+    // Null if the JVM can't count the bytes allocated by a thread
+    private static final com.sun.management.ThreadMXBean ALLOCATION_BEAN = allocationBean();
+
+    private final BllocSwitchView view;
+    private final ManualFrameClock frameClock = new ManualFrameClock();
+    private final long allocationOverhead;
+    private final long invalidationAllocatedBytes;
+
+    GestureReplayer(BllocSwitchView view) {
+        this.view = view;
+        view.getSwitchDrawable().setFrameClock(frameClock);
+        allocationOverhead = measureAllocationOverhead();
+        invalidationAllocatedBytes = measureInvalidation();
+    }
+
+    /**
+     * Lays out the view with the size of the trace and delivers its events.
+     */
+    Replay replay(GestureTrace trace) {
+        layout(trace.getViewWidth(), trace.getViewHeight());
+        int eventCount = trace.size();
+        long firstTime = eventCount > 0 ? trace.getHistoricalEventTime(0, 0) : 0L;
+        long lastTime = eventCount > 0 ? trace.getEventTime(eventCount - 1) : 0L;
+        long timeOffset = SystemClock.uptimeMillis() - firstTime;
+        int maxFrames = (int) ((lastTime - firstTime) * NANOS_PER_MILLI / FRAME_PERIOD_NANOS) + 2 + MAX_IDLE_FRAMES;
+        Replay replay = new Replay(eventCount, maxFrames);
+        replay.invalidationAllocatedBytes = invalidationAllocatedBytes;
+        replay.timeOffsetNanos = timeOffset * NANOS_PER_MILLI;
+
+        long nextFrameTime = (firstTime + timeOffset) * NANOS_PER_MILLI;
+        long downTime = firstTime + timeOffset;
+        for (int event = 0; event < eventCount; event++) {
+            long eventTime = trace.getEventTime(event) + timeOffset;
+            while (nextFrameTime <= eventTime * NANOS_PER_MILLI) {
+                if (frameClock.hasPendingFrame()) {
+                    runFrame(replay, nextFrameTime);
+                }
+                nextFrameTime += FRAME_PERIOD_NANOS;
+            }
+            if (trace.getAction(event) == MotionEvent.ACTION_DOWN) {
+                downTime = eventTime;
+            }
+            MotionEvent ev = obtainMotionEvent(trace, event, downTime, timeOffset);
+            long allocatedBefore = allocatedBytes();
+            long start = System.nanoTime();
+            view.dispatchTouchEvent(ev);
+            replay.eventNanos[event] = System.nanoTime() - start;
+            replay.eventAllocatedBytes[event] = allocatedBytes() - allocatedBefore - allocationOverhead;
+            ev.recycle();
+        }
+        while (frameClock.hasPendingFrame() && replay.frameCount < maxFrames) {
+            runFrame(replay, nextFrameTime);
+            nextFrameTime += FRAME_PERIOD_NANOS;
+        }
+        replay.idle = !frameClock.hasPendingFrame();
+        replay.checked = view.isChecked();
+        view.getSwitchDrawable().getShapeBounds(replay.container, replay.innerShape);
+        return replay;
+    }
+
+    private void runFrame(Replay replay, long frameTimeNanos) {
+        int frame = replay.frameCount++;
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        frameClock.doFrame(frameTimeNanos);
+        replay.frameNanos[frame] = System.nanoTime() - start;
+        replay.frameAllocatedBytes[frame] = allocatedBytes() - allocatedBefore - allocationOverhead;
+        BllocSwitchDrawable drawable = view.getSwitchDrawable();
+        drawable.getShapeBounds(replay.container, replay.innerShape);
+        replay.frameTimeNanos[frame] = frameTimeNanos - replay.timeOffsetNanos;
+        replay.innerShapeLeft[frame] = replay.innerShape.left;
+        replay.innerShapeRight[frame] = replay.innerShape.right;
+        replay.containerColor[frame] = drawable.getCurrentContainerColor();
+    }
+
+    private void layout(int width, int height) {
+        if (view.getWidth() == width && view.getHeight() == height) return;
+        view.measure(
+                View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(height, View.MeasureSpec.EXACTLY)
+        );
+        view.layout(0, 0, width, height);
+    }
+
+    private static MotionEvent obtainMotionEvent(GestureTrace trace, int event, long downTime, long timeOffset) {
+        int pointerCount = trace.getPointerCount(event);
+        int historySize = trace.getHistorySize(event);
+        MotionEvent.PointerProperties[] properties = new MotionEvent.PointerProperties[pointerCount];
+        MotionEvent.PointerCoords[] coords = new MotionEvent.PointerCoords[pointerCount];
+        for (int i = 0; i < pointerCount; i++) {
+            properties[i] = new MotionEvent.PointerProperties();
+            properties[i].id = trace.getPointerId(event, i);
+            properties[i].toolType = MotionEvent.TOOL_TYPE_FINGER;
+            coords[i] = new MotionEvent.PointerCoords();
+        }
+        MotionEvent ev = null;
+        for (int pos = 0; pos <= historySize; pos++) {
+            for (int i = 0; i < pointerCount; i++) {
+                coords[i].x = trace.getHistoricalX(event, i, pos);
+                coords[i].y = trace.getHistoricalY(event, i, pos);
+                coords[i].pressure = 1f;
+                coords[i].size = 1f;
+            }
+            long sampleTime = trace.getHistoricalEventTime(event, pos) + timeOffset;
+            if (ev == null) {
+                ev = MotionEvent.obtain(downTime, sampleTime, trace.getAction(event), pointerCount,
+                        properties, coords, 0, 0, 1f, 1f, 0, 0, InputDevice.SOURCE_TOUCHSCREEN, 0);
+            } else {
+                ev.addBatch(sampleTime, coords, 0);
+            }
+        }
+        return ev;
+    }
+
+    /**
+     * @return whether the allocations of the replays are measured, they are all 0 otherwise.
+     */
+    static boolean canMeasureAllocations() {
+        return ALLOCATION_BEAN != null;
+    }
+
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) return null;
+        com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) bean;
+        if (!allocationBean.isThreadAllocatedMemorySupported()) return null;
+        allocationBean.setThreadAllocatedMemoryEnabled(true);
+        return allocationBean;
+    }
+
+    private static long allocatedBytes() {
+        if (ALLOCATION_BEAN == null) return 0L;
+        return ALLOCATION_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * @return bytes allocated by invalidating the drawable of the view, which Robolectric does
+     * by reflection but a device does without allocating.
+     */
+    private long measureInvalidation() {
+        long allocated = Long.MAX_VALUE;
+        for (int i = 0; i < 16; i++) {
+            long before = allocatedBytes();
+            view.getSwitchDrawable().invalidateSelf();
+            allocated = Math.min(allocated, allocatedBytes() - before - allocationOverhead);
+        }
+        return allocated;
+    }
+
+    /**
+     * @return bytes allocated by reading the allocated bytes, discounted from every measurement.
+     */
+    private static long measureAllocationOverhead() {
+        long overhead = Long.MAX_VALUE;
+        for (int i = 0; i < 16; i++) {
+            long before = allocatedBytes();
+            overhead = Math.min(overhead, allocatedBytes() - before);
+        }
+        return overhead;
+    }
+
+    /**
+     * Outcome of a replay. Frames are the ones produced while the switch needed them, they are
+     * not produced while it rests.
+     */
+    static final class Replay {
+
+        final RectF container = new RectF();
+        // Where the inner shape is when the replay ends
+        final RectF innerShape = new RectF();
+        final long[] eventNanos;
+        final long[] eventAllocatedBytes;
+        int frameCount;
+        // In the time base of the trace, events at the same time as a frame are delivered after it
+        final long[] frameTimeNanos;
+        final float[] innerShapeLeft;
+        final float[] innerShapeRight;
+        final int[] containerColor;
+        final long[] frameNanos;
+        final long[] frameAllocatedBytes;
+        // Allocated by every invalidation of the drawable on the JVM, at most once per frame
+        long invalidationAllocatedBytes;
+        // Whether the switch stopped asking for frames before the replay ended
+        boolean idle;
+        boolean checked;
+        private long timeOffsetNanos;
+
+        private Replay(int eventCount, int maxFrames) {
+            eventNanos = new long[eventCount];
+            eventAllocatedBytes = new long[eventCount];
+            frameTimeNanos = new long[maxFrames];
+            innerShapeLeft = new float[maxFrames];
+            innerShapeRight = new float[maxFrames];
+            containerColor = new int[maxFrames];
+            frameNanos = new long[maxFrames];
+            frameAllocatedBytes = new long[maxFrames];
+        }
+
+    }
+
+}
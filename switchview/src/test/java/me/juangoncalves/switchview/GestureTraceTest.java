@@ -0,0 +1,153 @@
+package me.juangoncalves.switchview;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class GestureTraceTest {
+
+    private static final int ACTION_DOWN = 0;
+    private static final int ACTION_UP = 1;
+    private static final int ACTION_MOVE = 2;
+    private static final int ACTION_POINTER_DOWN = 5;
+    private static final int ACTION_POINTER_INDEX_SHIFT = 8;
+
+    @Test
+    public void addEvent_isReadBackThroughTheAccessors() {
+        GestureTrace trace = new GestureTrace(144, 72);
+        trace.addEvent(ACTION_DOWN, 1000L, new int[]{0}, new float[]{10f}, new float[]{20f});
+        trace.addEvent(ACTION_POINTER_DOWN | (1 << ACTION_POINTER_INDEX_SHIFT), 1016L,
+                new int[]{0, 3}, new float[]{12f, 90f}, new float[]{21f, 30f});
+
+        assertEquals(144, trace.getViewWidth());
+        assertEquals(72, trace.getViewHeight());
+        assertEquals(2, trace.size());
+        assertEquals(0, trace.getHistorySize(1));
+        assertEquals(2, trace.getPointerCount(1));
+        assertEquals(3, trace.getPointerId(1, 1));
+        assertEquals(1016L, trace.getEventTime(1));
+        assertEquals(90f, trace.getX(1, 1), 0f);
+        assertEquals(30f, trace.getY(1, 1), 0f);
+        assertEquals(10f, trace.getX(0, 0), 0f);
+    }
+
+    @Test
+    public void writeTo_readFrom_keepsEverySampleWithTimesRelativeToTheFirstOne() throws IOException {
+        GestureTrace trace = new GestureTrace(144, 72);
+        trace.addEvent(ACTION_DOWN, 5000L, new int[]{7}, new float[]{100.25f}, new float[]{36f});
+        int move = trace.appendEvent(ACTION_MOVE, 2, 2);
+        trace.setPointerId(move, 0, 7);
+        trace.setPointerId(move, 1, 1);
+        for (int pos = 0; pos <= 2; pos++) {
+            trace.setSampleTime(move, pos, 5008L + pos * 4L);
+            trace.setCoords(move, pos, 0, 100f - pos, 36f);
+            trace.setCoords(move, pos, 1, -3.5f * pos, 1e6f);
+        }
+        trace.addEvent(ACTION_UP, 5100L, new int[]{7}, new float[]{42f}, new float[]{36f});
+
+        GestureTrace read = GestureTrace.readFrom(new ByteArrayInputStream(toByteArray(trace)));
+
+        assertEquals(144, read.getViewWidth());
+        assertEquals(72, read.getViewHeight());
+        assertEquals(3, read.size());
+        assertEquals(ACTION_MOVE, read.getAction(1));
+        assertEquals(2, read.getHistorySize(1));
+        assertEquals(1, read.getPointerId(1, 1));
+        assertEquals(0L, read.getEventTime(0));
+        assertEquals(12L, read.getHistoricalEventTime(1, 1));
+        assertEquals(16L, read.getEventTime(1));
+        assertEquals(100L, read.getEventTime(2));
+        assertEquals(99f, read.getHistoricalX(1, 0, 1), 0f);
+        assertEquals(-7f, read.getX(1, 1), 0f);
+        assertEquals(1e6f, read.getHistoricalY(1, 1, 0), 0f);
+        assertEquals(42f, read.getX(2, 0), 0f);
+    }
+
+    @Test
+    public void writeTo_takesAFewBytesPerSample() throws IOException {
+        GestureTrace trace = new GestureTrace(144, 72);
+        int[] pointerIds = {0};
+        trace.addEvent(ACTION_DOWN, 0L, pointerIds, new float[]{130f}, new float[]{36f});
+        for (int i = 1; i < 100; i++) {
+            trace.addEvent(ACTION_MOVE, i * 8L, pointerIds, new float[]{130f - i}, new float[]{36f});
+        }
+
+        // Action, pointer count, history size, pointer id, time delta and both coordinates
+        assertTrue(toByteArray(trace).length <= 20 + 100 * 13);
+    }
+
+    @Test
+    public void readFrom_rejectsOtherStreams() {
+        try {
+            GestureTrace.readFrom(new ByteArrayInputStream("not a trace".getBytes()));
+            fail();
+        } catch (IOException expected) {
+        }
+    }
+
+    @Test
+    public void readFrom_rejectsTruncatedStreams() throws IOException {
+        GestureTrace trace = new GestureTrace(144, 72);
+        trace.addEvent(ACTION_DOWN, 0L, new int[]{0}, new float[]{1f}, new float[]{2f});
+        byte[] bytes = toByteArray(trace);
+        try {
+            GestureTrace.readFrom(new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length - 1)));
+            fail();
+        } catch (EOFException expected) {
+        }
+    }
+
+    @Test
+    public void readFrom_rejectsNegativeEventCounts() {
+        assertCorrupted(-1);
+    }
+
+    @Test
+    public void readFrom_rejectsNegativeHistorySizes() {
+        assertCorrupted(1, ACTION_MOVE, 1, -1);
+    }
+
+    /**
+     * Asserts that a trace whose header is followed by the given varints is rejected.
+     */
+    private static void assertCorrupted(int... varInts) {
+        byte[] emptyTrace;
+        try {
+            emptyTrace = toByteArray(new GestureTrace(144, 72));
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        // The empty trace ends with its event count, a single byte
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(emptyTrace, 0, emptyTrace.length - 1);
+        for (int value : varInts) {
+            long unsigned = value & 0xFFFFFFFFL;
+            while ((unsigned & ~0x7FL) != 0) {
+                out.write((int) ((unsigned & 0x7F) | 0x80));
+                unsigned >>>= 7;
+            }
+            out.write((int) unsigned);
+        }
+        try {
+            GestureTrace.readFrom(new ByteArrayInputStream(out.toByteArray()));
+            fail();
+        } catch (IOException expected) {
+            assertEquals("Corrupted gesture trace", expected.getMessage());
+        }
+    }
+
+    private static byte[] toByteArray(GestureTrace trace) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        trace.writeTo(out);
+        return out.toByteArray();
+    }
+
+}
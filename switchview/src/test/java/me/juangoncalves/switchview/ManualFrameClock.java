@@ -0,0 +1,46 @@
+package me.juangoncalves.switchview;
+
+import android.view.Choreographer;
+
+import java.util.ArrayList;
+
+/**
+ * Frame clock that only produces a frame when asked to, at the given frame time.
+ */
+final class ManualFrameClock implements SwitchFrameClock {
+
+    private ArrayList<Choreographer.FrameCallback> pending = new ArrayList<>();
+    private ArrayList<Choreographer.FrameCallback> running = new ArrayList<>();
+
+    @Override
+    public void postFrameCallback(Choreographer.FrameCallback callback) {
+        pending.add(callback);
+    }
+
+    @Override
+    public void removeFrameCallback(Choreographer.FrameCallback callback) {
+        pending.remove(callback);
+    }
+
+    boolean hasPendingFrame() {
+        return !pending.isEmpty();
+    }
+
+    int getPendingCallbackCount() {
+        return pending.size();
+    }
+
+    /**
+     * Runs the callbacks posted before this call, callbacks posted by them wait for the next one.
+     */
+    void doFrame(long frameTimeNanos) {
+        ArrayList<Choreographer.FrameCallback> current = pending;
+        pending = running;
+        running = current;
+        for (int i = 0, size = current.size(); i < size; i++) {
+            current.get(i).doFrame(frameTimeNanos);
+        }
+        current.clear();
+    }
+
+}
@@ -0,0 +1,108 @@
+package me.juangoncalves.switchview;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MotionPredictorTest {
+
+    private static final long SAMPLE_INTERVAL = 8L;
+    private static final long HORIZON = 16L;
+    private static final float START = 100f;
+    private static final float DISTANCE = 200f;
+    private static final long DRAG_DURATION = 300L;
+    private static final long HOLD_DURATION = 120L;
+
+    private MotionPredictor predictor;
+
+    @Before
+    public void setUp() {
+        predictor = new MotionPredictor();
+    }
+
+    @Test
+    public void predict_withoutSamples_returnsTheLastPosition() {
+        assertEquals(0f, predictor.predict(100L), 0f);
+        predictor.addSample(50f, 0L);
+        predictor.addSample(60f, 8L);
+        assertEquals(60f, predictor.predict(24L), 0f);
+    }
+
+    @Test
+    public void predict_extrapolatesAConstantVelocity() {
+        for (long t = 0; t <= 48; t += SAMPLE_INTERVAL) {
+            predictor.addSample(t * 2f, t);
+        }
+        assertEquals(96f + 2f * HORIZON, predictor.predict(48L + HORIZON), 0.01f);
+    }
+
+    @Test
+    public void predict_isCappedToAMaximumHorizon() {
+        for (long t = 0; t <= 48; t += SAMPLE_INTERVAL) {
+            predictor.addSample(t, t);
+        }
+        assertEquals(predictor.predict(48L + 32L), predictor.predict(48L + 1000L), 0f);
+    }
+
+    @Test
+    public void predict_afterADirectionChange_returnsTheLastPosition() {
+        float[] samples = {0f, 10f, 20f, 30f, 25f, 20f};
+        for (int i = 0; i < samples.length; i++) {
+            predictor.addSample(samples[i], i * SAMPLE_INTERVAL);
+        }
+        assertEquals(20f, predictor.predict(5 * SAMPLE_INTERVAL + HORIZON), 0f);
+    }
+
+    @Test
+    public void reset_forgetsThePreviousGesture() {
+        for (long t = 0; t <= 48; t += SAMPLE_INTERVAL) {
+            predictor.addSample(t, t);
+        }
+        predictor.reset();
+        predictor.addSample(500f, 1000L);
+        assertEquals(500f, predictor.predict(1000L + HORIZON), 0f);
+    }
+
+    /**
+     * Replays a noisy drag that speeds up, slows down and stops, comparing the prediction made on
+     * every sample with the actual position one horizon later.
+     */
+    @Test
+    public void replay_reducesTheTrailingErrorWithoutOvershooting() {
+        Random random = new Random(42L);
+        float predictionError = 0f;
+        float trailingError = 0f;
+        float maxOvershoot = 0f;
+        int samples = 0;
+        for (long t = 0; t <= DRAG_DURATION + HOLD_DURATION; t += SAMPLE_INTERVAL) {
+            float x = fingerPosition(t) + (random.nextFloat() - 0.5f);
+            predictor.addSample(x, t);
+            float predicted = predictor.predict(t + HORIZON);
+            float actual = fingerPosition(t + HORIZON);
+            predictionError += Math.abs(predicted - actual);
+            trailingError += Math.abs(x - actual);
+            maxOvershoot = Math.max(maxOvershoot, predicted - (START + DISTANCE));
+            samples++;
+        }
+        predictionError /= samples;
+        trailingError /= samples;
+
+        assertTrue("Prediction error " + predictionError + " vs trailing " + trailingError,
+                predictionError < trailingError / 2);
+        assertTrue("Overshoot " + maxOvershoot, maxOvershoot < 2f);
+    }
+
+    /**
+     * Smooth drag from {@link #START} covering {@link #DISTANCE}, then held still.
+     */
+    private static float fingerPosition(long time) {
+        float progress = Math.min(1f, (float) time / DRAG_DURATION);
+        float eased = progress * progress * (3 - 2 * progress);
+        return START + DISTANCE * eased;
+    }
+
+}
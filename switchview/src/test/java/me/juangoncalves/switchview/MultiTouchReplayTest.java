@@ -0,0 +1,364 @@
+package me.juangoncalves.switchview;
+
+import android.content.Context;
+import android.graphics.RectF;
+import android.view.MotionEvent;
+
+import androidx.annotation.NonNull;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.LooperMode;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static me.juangoncalves.switchview.GestureReplayTest.assertWithinContainer;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Replays gestures made with several fingers, including cancelled ones and random streams of
+ * pointers going down, moving and going up, checking that the switch never gets stuck between its
+ * states.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28, qualifiers = "xxhdpi")
+@LooperMode(LooperMode.Mode.PAUSED)
+public class MultiTouchReplayTest {
+
+    private static final int WIDTH = 144;
+    private static final int HEIGHT = 72;
+    private static final float Y = HEIGHT / 2f;
+    private static final long SAMPLE_INTERVAL = 8L;
+    private static final int RANDOM_TRACES = 300;
+    private static final int MAX_POINTERS = 10;
+    private static final int MAX_HISTORY_SIZE = 3;
+
+    private float checkedLeft;
+    private float uncheckedLeft;
+
+    @Before
+    public void setUp() {
+        checkedLeft = restingLeft(true);
+        uncheckedLeft = restingLeft(false);
+    }
+
+    @Test
+    public void cancel_beforeDragging_leavesTheSwitchAsItWas() {
+        GestureTrace trace = new GestureTrace(WIDTH, HEIGHT);
+        addEvent(trace, MotionEvent.ACTION_DOWN, 0L, 72f);
+        addEvent(trace, MotionEvent.ACTION_CANCEL, 80L, 72f);
+
+        GestureReplayer.Replay replay = new GestureReplayer(newSwitch()).replay(trace);
+
+        assertFalse(replay.checked);
+        assertEquals(0, replay.frameCount);
+        assertEquals(uncheckedLeft, replay.innerShape.left, 0f);
+    }
+
+    @Test
+    public void cancel_midDrag_goesBackToTheStateBeforeTheGesture() {
+        GestureTrace shortDrag = new GestureTrace(WIDTH, HEIGHT);
+        addEvent(shortDrag, MotionEvent.ACTION_DOWN, 0L, 130f);
+        long time = addDrag(shortDrag, 0L, 130f, 100f);
+        addEvent(shortDrag, MotionEvent.ACTION_CANCEL, time + SAMPLE_INTERVAL, 100f);
+        GestureTrace longDrag = new GestureTrace(WIDTH, HEIGHT);
+        addEvent(longDrag, MotionEvent.ACTION_DOWN, 0L, 130f);
+        time = addDrag(longDrag, 0L, 130f, 10f);
+        addEvent(longDrag, MotionEvent.ACTION_CANCEL, time + SAMPLE_INTERVAL, 10f);
+        BllocSwitchView view = newSwitch();
+        int[] checkedChanges = countCheckedChanges(view);
+
+        GestureReplayer replayer = new GestureReplayer(view);
+        GestureReplayer.Replay shortReplay = replayer.replay(shortDrag);
+        GestureReplayer.Replay longReplay = replayer.replay(longDrag);
+
+        assertFalse(shortReplay.checked);
+        assertTrue(shortReplay.idle);
+        assertEquals(uncheckedLeft, shortReplay.innerShape.left, 0f);
+        // Even past the center of the container, the drag is undone
+        assertFalse(longReplay.checked);
+        assertTrue(longReplay.idle);
+        assertEquals(uncheckedLeft, longReplay.innerShape.left, 0f);
+        assertEquals(0, checkedChanges[0]);
+    }
+
+    @Test
+    public void cancel_afterStoppingATransition_goesBackToTheStateBeforeTheGesture() {
+        GestureTrace trace = new GestureTrace(WIDTH, HEIGHT);
+        addEvent(trace, MotionEvent.ACTION_DOWN, 0L, 72f);
+        addEvent(trace, MotionEvent.ACTION_UP, 50L, 72f);
+        addEvent(trace, MotionEvent.ACTION_DOWN, 100L, 72f);
+        addEvent(trace, MotionEvent.ACTION_CANCEL, 150L, 72f);
+        BllocSwitchView view = newSwitch();
+        int[] checkedChanges = countCheckedChanges(view);
+
+        GestureReplayer.Replay replay = new GestureReplayer(view).replay(trace);
+
+        assertTrue(replay.idle);
+        assertWithinContainer(replay);
+        // The tap checked the switch, the cancelled gesture that stopped its transition doesn't
+        assertTrue(replay.checked);
+        assertEquals(checkedLeft, replay.innerShape.left, 0f);
+        assertEquals(1, checkedChanges[0]);
+    }
+
+    @Test
+    public void activePointerUp_withSeveralPointersDown_continuesWithAnotherOne() {
+        GestureTrace trace = new GestureTrace(WIDTH, HEIGHT);
+        addEvent(trace, MotionEvent.ACTION_DOWN, 0L, 130f);
+        long time = addDrag(trace, 0L, 130f, 100f);
+        int[] ids = {0, 1, 2};
+        time += SAMPLE_INTERVAL;
+        trace.addEvent(pointerAction(MotionEvent.ACTION_POINTER_DOWN, 1), time, new int[]{0, 1},
+                new float[]{100f, 20f}, new float[]{Y, Y});
+        time += SAMPLE_INTERVAL;
+        trace.addEvent(pointerAction(MotionEvent.ACTION_POINTER_DOWN, 2), time, ids,
+                new float[]{100f, 20f, 60f}, new float[]{Y, Y, Y});
+        time += SAMPLE_INTERVAL;
+        // The pointer that went down last takes over
+        trace.addEvent(pointerAction(MotionEvent.ACTION_POINTER_UP, 0), time, ids,
+                new float[]{100f, 20f, 60f}, new float[]{Y, Y, Y});
+        for (float x = 58f; x >= 50f; x -= 2f) {
+            time += SAMPLE_INTERVAL;
+            trace.addEvent(MotionEvent.ACTION_MOVE, time, new int[]{1, 2}, new float[]{20f, x}, new float[]{Y, Y});
+        }
+        // A pointer other than the active one going up changes nothing
+        time += SAMPLE_INTERVAL;
+        trace.addEvent(pointerAction(MotionEvent.ACTION_POINTER_UP, 0), time, new int[]{1, 2},
+                new float[]{20f, 50f}, new float[]{Y, Y});
+        long upTime = time + 200L;
+        trace.addEvent(MotionEvent.ACTION_UP, upTime, new int[]{2}, new float[]{50f}, new float[]{Y});
+
+        GestureReplayer.Replay replay = new GestureReplayer(newSwitch()).replay(trace);
+
+        assertEquals(uncheckedLeft - 40f, replay.innerShapeLeft[lastFrameBefore(replay, upTime)], 0.01f);
+        assertTrue(replay.idle);
+        assertWithinContainer(replay);
+    }
+
+    @Test
+    public void moveOfOtherPointers_doesNotScheduleFrames() {
+        GestureTrace trace = new GestureTrace(WIDTH, HEIGHT);
+        addEvent(trace, MotionEvent.ACTION_DOWN, 0L, 130f);
+        long time = addDrag(trace, 0L, 130f, 100f);
+        time += SAMPLE_INTERVAL;
+        trace.addEvent(pointerAction(MotionEvent.ACTION_POINTER_DOWN, 1), time, new int[]{0, 1},
+                new float[]{100f, 60f}, new float[]{Y, Y});
+        long stillFrom = time;
+        for (float x = 60f; x >= 20f; x -= 2f) {
+            time += SAMPLE_INTERVAL;
+            trace.addEvent(MotionEvent.ACTION_MOVE, time, new int[]{0, 1}, new float[]{100f, x}, new float[]{Y, Y});
+        }
+        long stillUntil = time;
+        time += SAMPLE_INTERVAL;
+        trace.addEvent(MotionEvent.ACTION_UP, time, new int[]{0}, new float[]{100f}, new float[]{Y});
+
+        GestureReplayer.Replay replay = new GestureReplayer(newSwitch()).replay(trace);
+
+        for (int frame = 0; frame < replay.frameCount; frame++) {
+            long frameTime = replay.frameTimeNanos[frame];
+            // Allow the frame applying the last movement of the active pointer
+            boolean whileStill = frameTime > millisToNanos(stillFrom) + GestureReplayer.FRAME_PERIOD_NANOS
+                    && frameTime <= millisToNanos(stillUntil);
+            assertFalse("Frame at " + frameTime, whileStill);
+        }
+    }
+
+    @Test
+    public void moveWithoutTheActivePointer_continuesWithAnotherOne() {
+        GestureTrace trace = new GestureTrace(WIDTH, HEIGHT);
+        addEvent(trace, MotionEvent.ACTION_DOWN, 0L, 130f);
+        long time = 0L;
+        for (float x = 120f; x >= 70f; x -= 2f) {
+            time += SAMPLE_INTERVAL;
+            trace.addEvent(MotionEvent.ACTION_MOVE, time, new int[]{5}, new float[]{x}, new float[]{Y});
+        }
+        long upTime = time + 200L;
+        trace.addEvent(MotionEvent.ACTION_UP, upTime, new int[]{5}, new float[]{70f}, new float[]{Y});
+
+        GestureReplayer.Replay replay = new GestureReplayer(newSwitch()).replay(trace);
+
+        assertEquals(uncheckedLeft - 50f, replay.innerShapeLeft[lastFrameBefore(replay, upTime)], 0.01f);
+        assertTrue(replay.idle);
+        assertWithinContainer(replay);
+    }
+
+    @Test
+    public void randomMultiPointerStreams_alwaysEndResting() {
+        Random random = new Random(42L);
+        GestureReplayer replayer = new GestureReplayer(newSwitch());
+        for (int i = 0; i < RANDOM_TRACES; i++) {
+            GestureReplayer.Replay replay = replayer.replay(randomTrace(random));
+
+            assertTrue("Trace " + i, replay.idle);
+            assertWithinContainer(replay);
+            assertEquals("Trace " + i, replay.checked ? checkedLeft : uncheckedLeft, replay.innerShape.left, 0f);
+        }
+    }
+
+    /**
+     * @return a gesture of up to {@link #MAX_POINTERS} pointers going down, moving and going up in
+     * any order, ended by the last pointer going up or by a cancellation.
+     */
+    private static GestureTrace randomTrace(Random random) {
+        GestureTrace trace = new GestureTrace(WIDTH, HEIGHT);
+        // Pointers down sorted by id, as the ids of a motion event
+        int[] ids = new int[MAX_POINTERS];
+        float[] xs = new float[MAX_POINTERS];
+        float[] ys = new float[MAX_POINTERS];
+        int count = 1;
+        xs[0] = randomX(random);
+        ys[0] = Y;
+        long time = 0L;
+        trace.addEvent(MotionEvent.ACTION_DOWN, time, new int[]{0}, new float[]{xs[0]}, new float[]{Y});
+        for (int e = 0, events = 20 + random.nextInt(200); e < events; e++) {
+            time += 1 + random.nextInt(20);
+            int choice = random.nextInt(10);
+            if (choice == 0 && count < MAX_POINTERS) {
+                int index = insertPointer(ids, xs, ys, count, randomX(random));
+                count++;
+                trace.addEvent(pointerAction(MotionEvent.ACTION_POINTER_DOWN, index), time,
+                        Arrays.copyOf(ids, count), Arrays.copyOf(xs, count), Arrays.copyOf(ys, count));
+            } else if (choice == 1 && count > 1) {
+                int index = random.nextInt(count);
+                trace.addEvent(pointerAction(MotionEvent.ACTION_POINTER_UP, index), time,
+                        Arrays.copyOf(ids, count), Arrays.copyOf(xs, count), Arrays.copyOf(ys, count));
+                removePointer(ids, xs, ys, count, index);
+                count--;
+            } else {
+                int historySize = random.nextInt(MAX_HISTORY_SIZE + 1);
+                int event = trace.appendEvent(MotionEvent.ACTION_MOVE, count, historySize);
+                for (int i = 0; i < count; i++) {
+                    trace.setPointerId(event, i, ids[i]);
+                }
+                for (int pos = 0; pos <= historySize; pos++) {
+                    time += pos > 0 ? 1 + random.nextInt((int) SAMPLE_INTERVAL) : 0;
+                    trace.setSampleTime(event, pos, time);
+                    for (int i = 0; i < count; i++) {
+                        // Fingers can wander off the view while the gesture goes on
+                        xs[i] = Math.max(-WIDTH, Math.min(2 * WIDTH, xs[i] + random.nextFloat() * 24f - 12f));
+                        trace.setCoords(event, pos, i, xs[i], ys[i]);
+                    }
+                }
+            }
+        }
+        time += 1 + random.nextInt(20);
+        if (random.nextInt(4) == 0) {
+            trace.addEvent(MotionEvent.ACTION_CANCEL, time,
+                    Arrays.copyOf(ids, count), Arrays.copyOf(xs, count), Arrays.copyOf(ys, count));
+            return trace;
+        }
+        while (count > 1) {
+            int index = random.nextInt(count);
+            trace.addEvent(pointerAction(MotionEvent.ACTION_POINTER_UP, index), time,
+                    Arrays.copyOf(ids, count), Arrays.copyOf(xs, count), Arrays.copyOf(ys, count));
+            removePointer(ids, xs, ys, count, index);
+            count--;
+            time += 1 + random.nextInt(20);
+        }
+        trace.addEvent(MotionEvent.ACTION_UP, time, new int[]{ids[0]}, new float[]{xs[0]}, new float[]{ys[0]});
+        return trace;
+    }
+
+    /**
+     * Adds a pointer with the lowest free id, as the input system assigns them.
+     *
+     * @return index of the new pointer.
+     */
+    private static int insertPointer(int[] ids, float[] xs, float[] ys, int count, float x) {
+        int index = 0;
+        while (index < count && ids[index] == index) {
+            index++;
+        }
+        System.arraycopy(ids, index, ids, index + 1, count - index);
+        System.arraycopy(xs, index, xs, index + 1, count - index);
+        System.arraycopy(ys, index, ys, index + 1, count - index);
+        ids[index] = index;
+        xs[index] = x;
+        ys[index] = Y;
+        return index;
+    }
+
+    private static void removePointer(int[] ids, float[] xs, float[] ys, int count, int index) {
+        System.arraycopy(ids, index + 1, ids, index, count - index - 1);
+        System.arraycopy(xs, index + 1, xs, index, count - index - 1);
+        System.arraycopy(ys, index + 1, ys, index, count - index - 1);
+    }
+
+    private static float randomX(Random random) {
+        return random.nextFloat() * WIDTH;
+    }
+
+    private static int pointerAction(int action, int pointerIndex) {
+        return action | (pointerIndex << MotionEvent.ACTION_POINTER_INDEX_SHIFT);
+    }
+
+    private static void addEvent(GestureTrace trace, int action, long time, float x) {
+        trace.addEvent(action, time, new int[]{0}, new float[]{x}, new float[]{Y});
+    }
+
+    /**
+     * Adds a move event every {@link #SAMPLE_INTERVAL} moving the first pointer 2 pixels at a time.
+     *
+     * @return time of the last event.
+     */
+    private static long addDrag(GestureTrace trace, long time, float fromX, float toX) {
+        float step = toX < fromX ? -2f : 2f;
+        for (float x = fromX + step; step < 0 ? x >= toX : x <= toX; x += step) {
+            time += SAMPLE_INTERVAL;
+            addEvent(trace, MotionEvent.ACTION_MOVE, time, x);
+        }
+        return time;
+    }
+
+    private static int lastFrameBefore(GestureReplayer.Replay replay, long timeMillis) {
+        int last = 0;
+        for (int frame = 0; frame < replay.frameCount && replay.frameTimeNanos[frame] <= millisToNanos(timeMillis); frame++) {
+            last = frame;
+        }
+        return last;
+    }
+
+    private static long millisToNanos(long millis) {
+        return millis * 1_000_000L;
+    }
+
+    /**
+     * @return a switch resting on the unchecked state, so dragging it to the left checks it.
+     */
+    private BllocSwitchView newSwitch() {
+        Context context = ApplicationProvider.getApplicationContext();
+        return new BllocSwitchView(context, new BllocSwitchStyle.Builder(context).setChecked(false).build());
+    }
+
+    /**
+     * @return a counter of the checked changes notified by the view from now on.
+     */
+    private static int[] countCheckedChanges(BllocSwitchView view) {
+        final int[] count = new int[1];
+        view.setOnCheckedChangeListener(new BllocSwitchView.OnCheckedChangeListener() {
+            @Override
+            public void onCheckedChanged(@NonNull BllocSwitchView view, boolean isChecked) {
+                count[0]++;
+            }
+        });
+        return count;
+    }
+
+    private float restingLeft(boolean checked) {
+        BllocSwitchView view = newSwitch();
+        view.getSwitchDrawable().setBounds(0, 0, WIDTH, HEIGHT);
+        view.jumpToState(checked);
+        RectF innerShape = new RectF();
+        view.getSwitchDrawable().getShapeBounds(new RectF(), innerShape);
+        return innerShape.left;
+    }
+
+}
@@ -0,0 +1,305 @@
+package me.juangoncalves.switchview;
+
+import android.app.Activity;
+import android.content.Context;
+import android.os.Looper;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import androidx.annotation.NonNull;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.LooperMode;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+@LooperMode(LooperMode.Mode.PAUSED)
+public class PersistedSwitchBindingTest {
+
+    private static final long WRITE_DELAY = 300L;
+    private static final Executor DIRECT_EXECUTOR = new Executor() {
+        @Override
+        public void execute(@NonNull Runnable command) {
+            command.run();
+        }
+    };
+
+    private Context context;
+    private RecordingStore store;
+    private PersistedSwitchBinding binding;
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        store = new RecordingStore();
+        binding = new PersistedSwitchBinding(store, DIRECT_EXECUTOR, WRITE_DELAY);
+    }
+
+    @Test
+    public void bind_movesTheSwitchToTheStoredState() {
+        store.states.put("a", false);
+        BllocSwitchView view = new BllocSwitchView(context);
+
+        binding.bind(view, "a", true);
+        assertFalse(view.isChecked());
+        binding.bind(view, "b", true);
+        assertTrue(view.isChecked());
+        assertTrue(store.writes.isEmpty());
+    }
+
+    @Test
+    public void changes_areWrittenOnceNothingChangedForTheWriteDelay() {
+        BllocSwitchView view = new BllocSwitchView(context);
+        binding.bind(view, "a", false);
+
+        view.setChecked(true);
+        idleFor(WRITE_DELAY / 2);
+        view.setChecked(false);
+        idleFor(WRITE_DELAY - 1);
+        assertTrue(store.writes.isEmpty());
+
+        idleFor(1);
+        assertEquals(1, store.writes.size());
+        assertEquals(false, store.writes.get(0).get("a"));
+    }
+
+    @Test
+    public void changesOfSeveralSwitches_areCoalescedIntoASingleWrite() {
+        BllocSwitchView a = new BllocSwitchView(context);
+        BllocSwitchView b = new BllocSwitchView(context);
+        binding.bind(a, "a", false);
+        binding.bind(b, "b", false);
+
+        for (int i = 0; i < 5; i++) {
+            a.setChecked(!a.isChecked());
+            b.setChecked(!b.isChecked());
+        }
+        idleFor(WRITE_DELAY);
+
+        assertEquals(1, store.writes.size());
+        Map<String, Boolean> written = store.writes.get(0);
+        assertEquals(2, written.size());
+        assertEquals(true, written.get("a"));
+        assertEquals(true, written.get("b"));
+    }
+
+    @Test
+    public void bind_prefersTheStatesNotWrittenYet() {
+        store.states.put("a", false);
+        BllocSwitchView view = new BllocSwitchView(context);
+        binding.bind(view, "a", false);
+        view.setChecked(true);
+
+        BllocSwitchView recycled = new BllocSwitchView(context);
+        binding.bind(recycled, "a", false);
+
+        assertTrue(recycled.isChecked());
+    }
+
+    @Test
+    public void detachingABoundSwitch_writesThePendingChanges() {
+        Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+        FrameLayout content = new FrameLayout(activity);
+        activity.setContentView(content);
+        BllocSwitchView view = new BllocSwitchView(activity);
+        content.addView(view);
+        idleFor(0);
+        binding.bind(view, "a", false);
+
+        view.setChecked(true);
+        ((ViewGroup) view.getParent()).removeView(view);
+
+        assertEquals(1, store.writes.size());
+        assertEquals(true, store.writes.get(0).get("a"));
+    }
+
+    @Test
+    public void flushAndWait_returnsOnceTheStoreHoldsTheChanges() {
+        ExecutorService writeExecutor = Executors.newSingleThreadExecutor();
+        try {
+            SlowStore slowStore = new SlowStore();
+            PersistedSwitchBinding binding = new PersistedSwitchBinding(slowStore, writeExecutor, WRITE_DELAY);
+            BllocSwitchView a = new BllocSwitchView(context);
+            BllocSwitchView b = new BllocSwitchView(context);
+            binding.bind(a, "a", false);
+            binding.bind(b, "b", false);
+            a.setChecked(true);
+            // Still being written when the next changes are made
+            binding.flush();
+            a.setChecked(false);
+            b.setChecked(true);
+
+            binding.flushAndWait();
+
+            assertEquals(false, slowStore.states.get("a"));
+            assertEquals(true, slowStore.states.get("b"));
+        } finally {
+            writeExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void writtenStates_areReadFromTheStoreAgain() {
+        BllocSwitchView view = new BllocSwitchView(context);
+        binding.bind(view, "a", false);
+        view.setChecked(true);
+        assertEquals(1, binding.getKnownStateCount());
+
+        idleFor(WRITE_DELAY);
+
+        assertEquals(0, binding.getKnownStateCount());
+        BllocSwitchView recycled = new BllocSwitchView(context);
+        binding.bind(recycled, "a", false);
+        assertTrue(recycled.isChecked());
+    }
+
+    @Test
+    public void statesChangedWhileBeingWritten_areKeptUntilTheirOwnWrite() {
+        ArrayList<Runnable> writes = new ArrayList<>();
+        PersistedSwitchBinding binding = new PersistedSwitchBinding(store, queueingExecutor(writes), WRITE_DELAY);
+        BllocSwitchView view = new BllocSwitchView(context);
+        binding.bind(view, "a", false);
+        view.setChecked(true);
+        binding.flush();
+        view.setChecked(false);
+        binding.flush();
+
+        writes.get(0).run();
+        idleFor(0);
+        assertEquals(1, binding.getKnownStateCount());
+        BllocSwitchView recycled = new BllocSwitchView(context);
+        binding.bind(recycled, "a", true);
+        assertFalse(recycled.isChecked());
+
+        writes.get(1).run();
+        idleFor(0);
+        assertEquals(0, binding.getKnownStateCount());
+    }
+
+    @Test
+    public void unbind_stopsWritingTheChanges() {
+        BllocSwitchView view = new BllocSwitchView(context);
+        binding.bind(view, "a", false);
+
+        binding.unbind(view);
+        view.setChecked(true);
+        idleFor(WRITE_DELAY);
+
+        assertTrue(store.writes.isEmpty());
+        assertNull(view.getOnCheckedChangeListener());
+    }
+
+    @Test
+    public void unbind_leavesTheSwitchesBoundToOtherBindings() {
+        RecordingStore otherStore = new RecordingStore();
+        PersistedSwitchBinding other = new PersistedSwitchBinding(otherStore, DIRECT_EXECUTOR, WRITE_DELAY);
+        BllocSwitchView view = new BllocSwitchView(context);
+        binding.bind(view, "a", false);
+        other.bind(view, "b", false);
+
+        binding.unbind(view);
+        view.setChecked(true);
+        idleFor(WRITE_DELAY);
+
+        assertTrue(store.writes.isEmpty());
+        assertEquals(1, otherStore.writes.size());
+        assertEquals(true, otherStore.writes.get(0).get("b"));
+    }
+
+    @Test
+    public void getOnCheckedChangeListener_returnsTheListenerSet() {
+        BllocSwitchView view = new BllocSwitchView(context);
+        BllocSwitchView.OnCheckedChangeListener listener = new BllocSwitchView.OnCheckedChangeListener() {
+            @Override
+            public void onCheckedChanged(@NonNull BllocSwitchView view, boolean isChecked) {
+            }
+        };
+        assertNull(view.getOnCheckedChangeListener());
+
+        view.setOnCheckedChangeListener(listener);
+        assertSame(listener, view.getOnCheckedChangeListener());
+
+        view.setOnCheckedChangeListener(null);
+        assertNull(view.getOnCheckedChangeListener());
+    }
+
+    private static Executor queueingExecutor(final ArrayList<Runnable> queue) {
+        return new Executor() {
+            @Override
+            public void execute(@NonNull Runnable command) {
+                queue.add(command);
+            }
+        };
+    }
+
+    private static void idleFor(long millis) {
+        shadowOf(Looper.getMainLooper()).idleFor(millis, TimeUnit.MILLISECONDS);
+    }
+
+    private static final class RecordingStore implements SwitchStateStore {
+
+        final HashMap<String, Boolean> states = new HashMap<>();
+        final ArrayList<Map<String, Boolean>> writes = new ArrayList<>();
+
+        @Override
+        public boolean isChecked(@NonNull String key, boolean defaultValue) {
+            Boolean state = states.get(key);
+            return state != null ? state : defaultValue;
+        }
+
+        @Override
+        public void write(@NonNull Map<String, Boolean> states) {
+            writes.add(new HashMap<>(states));
+            this.states.putAll(states);
+        }
+
+    }
+
+    /**
+     * Takes a while to write, as a store writing to disk would.
+     */
+    private static final class SlowStore implements SwitchStateStore {
+
+        final ConcurrentHashMap<String, Boolean> states = new ConcurrentHashMap<>();
+
+        @Override
+        public boolean isChecked(@NonNull String key, boolean defaultValue) {
+            Boolean state = states.get(key);
+            return state != null ? state : defaultValue;
+        }
+
+        @Override
+        public void write(@NonNull Map<String, Boolean> states) {
+            try {
+                Thread.sleep(50L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            this.states.putAll(states);
+        }
+
+    }
+
+}
@@ -0,0 +1,169 @@
+package me.juangoncalves.switchview;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+public class SwitchAnimatorTest {
+
+    private static final long FRAME_NANOS = 16_666_667L;
+
+    @Test
+    public void step_keepsInitialValuesOnFirstFrame() {
+        SwitchAnimator animator = new SwitchAnimator();
+        animator.start(10f, 0f, 80f);
+        assertTrue(animator.step(5_000_000_000L));
+        assertEquals(10f, animator.getPosition(), 0f);
+    }
+
+    @Test
+    public void step_settlesOnTarget() {
+        SwitchAnimator animator = new SwitchAnimator();
+        animator.start(10f, 0f, 80f);
+        int frames = runUntilRest(animator, 0L);
+        assertFalse(animator.isRunning());
+        assertEquals(80f, animator.getPosition(), 0f);
+        assertEquals(0f, animator.getVelocity(), 0f);
+        // The default spring settles in roughly the time of the former fixed 330ms animation
+        assertTrue("Took " + frames + " frames", frames <= 30);
+    }
+
+    @Test
+    public void step_withCriticalDampingNeverOvershoots() {
+        SwitchAnimator animator = new SwitchAnimator(400f, 1f);
+        animator.start(10f, 0f, 80f);
+        long frameTime = 0L;
+        while (animator.step(frameTime)) {
+            assertTrue(animator.getPosition() <= 80f);
+            frameTime += FRAME_NANOS;
+        }
+    }
+
+    @Test
+    public void step_withLowDampingOvershoots() {
+        SwitchAnimator animator = new SwitchAnimator(400f, 0.3f);
+        animator.start(10f, 0f, 80f);
+        float maxPosition = 0f;
+        long frameTime = 0L;
+        while (animator.step(frameTime)) {
+            maxPosition = Math.max(maxPosition, animator.getPosition());
+            frameTime += FRAME_NANOS;
+        }
+        assertTrue(maxPosition > 80f);
+        assertEquals(80f, animator.getPosition(), 0f);
+    }
+
+    @Test
+    public void start_carriesTheInitialVelocity() {
+        SwitchAnimator animator = new SwitchAnimator();
+        // Flinging away from the target first keeps moving in the fling direction
+        animator.start(50f, -2000f, 80f);
+        animator.step(0L);
+        animator.step(FRAME_NANOS);
+        assertTrue(animator.getPosition() < 50f);
+        runUntilRest(animator, FRAME_NANOS);
+        assertEquals(80f, animator.getPosition(), 0f);
+    }
+
+    @Test
+    public void start_whileRunningRetargetsWithoutRestarting() {
+        SwitchAnimator animator = new SwitchAnimator();
+        animator.start(10f, 0f, 80f);
+        animator.step(0L);
+        animator.step(FRAME_NANOS);
+        animator.step(FRAME_NANOS * 2);
+        float position = animator.getPosition();
+        float velocity = animator.getVelocity();
+        assertTrue(velocity > 0f);
+
+        animator.start(position, velocity, 10f);
+        // The clock keeps going, so the next frame already moves and keeps the momentum
+        animator.step(FRAME_NANOS * 3);
+        assertTrue(animator.getPosition() > position);
+        runUntilRest(animator, FRAME_NANOS * 3);
+        assertEquals(10f, animator.getPosition(), 0f);
+    }
+
+    @Test
+    public void start_withDelayHoldsTheInitialPosition() {
+        SwitchAnimator animator = new SwitchAnimator();
+        animator.start(10f, 0f, 80f, FRAME_NANOS * 3);
+        animator.step(0L);
+        animator.step(FRAME_NANOS);
+        animator.step(FRAME_NANOS * 2);
+        assertEquals(10f, animator.getPosition(), 0f);
+        animator.step(FRAME_NANOS * 4);
+        assertTrue(animator.getPosition() > 10f);
+        runUntilRest(animator, FRAME_NANOS * 4);
+        assertEquals(80f, animator.getPosition(), 0f);
+    }
+
+    @Test
+    public void cancel_keepsCurrentPosition() {
+        SwitchAnimator animator = new SwitchAnimator();
+        animator.start(0f, 0f, 100f);
+        animator.step(0L);
+        animator.step(FRAME_NANOS * 5);
+        float position = animator.getPosition();
+        animator.cancel();
+        assertFalse(animator.step(FRAME_NANOS * 6));
+        assertEquals(position, animator.getPosition(), 0f);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setSpring_rejectsNonPositiveStiffness() {
+        new SwitchAnimator().setSpring(0f, 1f);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setSpring_rejectsZeroDamping() {
+        new SwitchAnimator().setSpring(400f, 0f);
+    }
+
+    @Test
+    public void repeatedToggles_doNotAllocate() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(allocationBean.isThreadAllocatedMemorySupported());
+        allocationBean.setThreadAllocatedMemoryEnabled(true);
+        long threadId = Thread.currentThread().getId();
+        SwitchAnimator animator = new SwitchAnimator();
+
+        // Warm up so that class loading and the measurement itself are not accounted for
+        runToggles(animator, 1_000);
+        allocationBean.getThreadAllocatedBytes(threadId);
+        long before = allocationBean.getThreadAllocatedBytes(threadId);
+        runToggles(animator, 10_000);
+        long after = allocationBean.getThreadAllocatedBytes(threadId);
+
+        assertEquals(0L, after - before);
+    }
+
+    private static int runUntilRest(SwitchAnimator animator, long frameTime) {
+        int frames = 0;
+        while (animator.step(frameTime)) {
+            frameTime += FRAME_NANOS;
+            frames++;
+        }
+        return frames;
+    }
+
+    private static void runToggles(SwitchAnimator animator, int count) {
+        long frameTime = 0L;
+        for (int i = 0; i < count; i++) {
+            // Retarget half way through every other transition
+            animator.start(animator.getPosition(), animator.getVelocity(), i % 2 == 0 ? 21f : 77f);
+            for (int frame = 0; animator.step(frameTime) && (i % 3 != 0 || frame < 8); frame++) {
+                frameTime += FRAME_NANOS;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,140 @@
+package me.juangoncalves.switchview;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.LooperMode;
+
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Binding switches to a {@link SwitchStateSet} or a {@link PersistedSwitchBinding}, which share
+ * the single binding of a switch.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+@LooperMode(LooperMode.Mode.PAUSED)
+public class SwitchBindingTest {
+
+    private BllocSwitchView view;
+    private int checkedChanges;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        view = new BllocSwitchView(context);
+        view.setOnCheckedChangeListener(new BllocSwitchView.OnCheckedChangeListener() {
+            @Override
+            public void onCheckedChanged(@NonNull BllocSwitchView view, boolean isChecked) {
+                checkedChanges++;
+            }
+        });
+    }
+
+    @Test
+    public void bind_keepsTheListenerOfTheSwitch() {
+        BllocSwitchView.OnCheckedChangeListener listener = view.getOnCheckedChangeListener();
+        SwitchStateSet states = new SwitchStateSet();
+        states.bind(view, 3);
+        checkedChanges = 0;
+
+        view.setChecked(true);
+
+        assertSame(listener, view.getOnCheckedChangeListener());
+        assertEquals(1, checkedChanges);
+        assertTrue(states.isChecked(3));
+    }
+
+    @Test
+    public void bind_toAnotherId_doesNotChangeThePreviousOne() {
+        SwitchStateSet states = new SwitchStateSet();
+        states.setChecked(1, true);
+        states.clearDirty();
+        states.bind(view, 1);
+
+        states.bind(view, 2);
+        view.setChecked(true);
+
+        assertTrue(states.isChecked(1));
+        assertTrue(states.isChecked(2));
+        // The switch already shows its changes
+        assertFalse(states.hasDirtyIds());
+    }
+
+    @Test
+    public void unbind_leavesTheSwitchesBoundToOtherSets() {
+        SwitchStateSet first = new SwitchStateSet();
+        SwitchStateSet second = new SwitchStateSet();
+        first.bind(view, 0);
+        second.bind(view, 0);
+
+        first.unbind(view);
+        view.setChecked(true);
+
+        assertFalse(first.isChecked(0));
+        assertTrue(second.isChecked(0));
+    }
+
+    @Test
+    public void bind_replacesTheBindingOfAnotherSource() {
+        SwitchStateSet states = new SwitchStateSet();
+        CountingStore store = new CountingStore();
+        PersistedSwitchBinding persisted = new PersistedSwitchBinding(store, new Executor() {
+            @Override
+            public void execute(@NonNull Runnable command) {
+                command.run();
+            }
+        }, 0L);
+        persisted.bind(view, "a", false);
+
+        states.bind(view, 0);
+        view.setChecked(true);
+        persisted.flush();
+
+        assertTrue(states.isChecked(0));
+        assertEquals(0, store.writes);
+    }
+
+    @Test
+    public void unbind_removesTheBinding() {
+        SwitchStateSet states = new SwitchStateSet();
+        states.bind(view, 0);
+
+        states.unbind(view);
+        view.setChecked(true);
+
+        assertNull(view.getBinding());
+        assertFalse(states.isChecked(0));
+    }
+
+    private static final class CountingStore implements SwitchStateStore {
+
+        int writes;
+
+        @Override
+        public boolean isChecked(@NonNull String key, boolean defaultValue) {
+            return defaultValue;
+        }
+
+        @Override
+        public void write(@NonNull Map<String, Boolean> states) {
+            writes++;
+        }
+
+    }
+
+}
@@ -0,0 +1,82 @@
+package me.juangoncalves.switchview;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class SwitchDimensionsTest {
+
+    @Test
+    public void forDensity_convertsTheDefaultSizesOnce() {
+        SwitchDimensions dimensions = SwitchDimensions.forDensity(3f);
+        assertEquals(144, dimensions.width);
+        assertEquals(72, dimensions.height);
+        assertEquals(21f, dimensions.padding, 0f);
+        assertEquals(4.5f, dimensions.strokeWidth, 0f);
+        assertSame(dimensions, SwitchDimensions.forDensity(3f));
+    }
+
+    @Test
+    public void obtain_sharesTheInstancesOfTheSameSize() {
+        SwitchDimensions dimensions = SwitchDimensions.obtain(99.6f, 50.2f, 10f, 2f);
+        assertEquals(100, dimensions.width);
+        assertEquals(50, dimensions.height);
+        assertSame(dimensions, SwitchDimensions.obtain(100f, 50f, 10f, 2f));
+    }
+
+    @Test
+    public void obtain_bucketsThePaddingAndTheStrokeWidth() {
+        SwitchDimensions dimensions = SwitchDimensions.obtain(100f, 50f, 10.04f, 1.99f);
+        assertEquals(10f, dimensions.padding, 0f);
+        assertEquals(2f, dimensions.strokeWidth, 0f);
+        assertSame(dimensions, SwitchDimensions.obtain(100f, 50f, 10f, 2f));
+    }
+
+    @Test
+    public void obtain_dropsTheLeastRecentlyUsedSizes() {
+        SwitchDimensions dropped = SwitchDimensions.obtain(300f, 150f, 10f, 2f);
+        SwitchDimensions kept = SwitchDimensions.obtain(300f, 151f, 10f, 2f);
+        for (int i = 0; i < 100; i++) {
+            SwitchDimensions.obtain(400f + i, 150f, 10f, 2f);
+            assertSame(kept, SwitchDimensions.obtain(300f, 151f, 10f, 2f));
+        }
+
+        SwitchDimensions obtainedAgain = SwitchDimensions.obtain(300f, 150f, 10f, 2f);
+        assertNotSame(dropped, obtainedAgain);
+        assertEquals(dropped, obtainedAgain);
+    }
+
+    @Test
+    public void scaledToFit_keepsTheProportions() {
+        SwitchDimensions dimensions = SwitchDimensions.obtain(100f, 50f, 10f, 2f);
+
+        SwitchDimensions smaller = dimensions.scaledToFit(1000, 25);
+        assertEquals(50, smaller.width);
+        assertEquals(25, smaller.height);
+        assertEquals(5f, smaller.padding, 0f);
+        assertEquals(1f, smaller.strokeWidth, 0f);
+
+        SwitchDimensions larger = dimensions.scaledToFit(200, 1000);
+        assertEquals(200, larger.width);
+        assertEquals(100, larger.height);
+        assertEquals(20f, larger.padding, 0f);
+    }
+
+    @Test
+    public void scaledToFit_sharesTheInstancesOfTheSameSize() {
+        SwitchDimensions dimensions = SwitchDimensions.obtain(100f, 50f, 10f, 2f);
+
+        assertSame(dimensions, dimensions.scaledToFit(1000, 50));
+        assertSame(dimensions, dimensions.scaledToFit(0, 0));
+        assertSame(dimensions.scaledToFit(1000, 25), dimensions.scaledToFit(50, 25));
+        assertSame(dimensions.scaledToFit(50, 25), SwitchDimensions.obtain(50f, 25f, 5f, 1f));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void obtain_rejectsPaddingLargerThanTheSwitch() {
+        SwitchDimensions.obtain(100f, 50f, 25f, 2f);
+    }
+
+}
@@ -0,0 +1,78 @@
+package me.juangoncalves.switchview;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class SwitchGeometryTest {
+
+    private static final float MIN_WIDTH = 1f;
+    private static final int MIN_OPACITY = 80;
+    private static final int COLOR = 0xFF5C5C5C;
+
+    private SwitchGeometry geometry;
+
+    @Before
+    public void setUp() {
+        geometry = new SwitchGeometry(MIN_WIDTH, MIN_OPACITY);
+        geometry.setColor(COLOR);
+        // 140x70 container with a padding of 21, as laid out by the view
+        geometry.update(100f, 240f, 21f, 28f);
+    }
+
+    @Test
+    public void update_computesInnerShapeLimits() {
+        assertEquals(121f, geometry.getMinLeft(), 0f);
+        assertEquals(205f, geometry.getMaxLeft(), 0f);
+        assertEquals(28f, geometry.getFullInnerCircleDiameter(), 0f);
+    }
+
+    @Test
+    public void update_movingTheContainerKeepsTheLines() {
+        geometry.update(0f, 140f, 21f, 28f);
+        assertEquals(21f, geometry.getMinLeft(), 0f);
+        assertEquals(105f, geometry.getMaxLeft(), 0f);
+        assertEquals(70f, geometry.getContainerCenter(), 0f);
+        assertEquals(14.5f, geometry.widthForPosition(63f), 0.0001f);
+        assertEquals(167, geometry.opacityForPosition(63f));
+
+        geometry.update(0f, 70f, 10.5f, 14f);
+        assertEquals(7.5f, geometry.widthForPosition(31.5f), 0.0001f);
+    }
+
+    @Test
+    public void widthForPosition_goesFromFullCircleToMinimumWidth() {
+        assertEquals(28f, geometry.widthForPosition(121f), 0.0001f);
+        assertEquals(MIN_WIDTH, geometry.widthForPosition(205f), 0.0001f);
+        assertEquals(14.5f, geometry.widthForPosition(163f), 0.0001f);
+    }
+
+    @Test
+    public void widthForPosition_isClampedOutsideOfTheLimits() {
+        assertEquals(28f, geometry.widthForPosition(0f), 0f);
+        assertEquals(MIN_WIDTH, geometry.widthForPosition(500f), 0f);
+    }
+
+    @Test
+    public void colorForPosition_keepsRgbAndInterpolatesOpacity() {
+        assertEquals(COLOR, geometry.colorForPosition(121f));
+        assertEquals(0x505C5C5C, geometry.colorForPosition(205f));
+        assertEquals(167, geometry.opacityForPosition(163f));
+    }
+
+    @Test
+    public void setColor_updatesTheOpacityLine() {
+        geometry.setColor(0xC0102030);
+        assertEquals(0xC0102030, geometry.colorForPosition(121f));
+        assertEquals(0x50102030, geometry.colorForPosition(205f));
+    }
+
+    @Test
+    public void clampPosition_keepsTheInnerShapeInsideTheContainer() {
+        assertEquals(121f, geometry.clampPosition(0f), 0f);
+        assertEquals(205f, geometry.clampPosition(300f), 0f);
+        assertEquals(150f, geometry.clampPosition(150f), 0f);
+    }
+
+}
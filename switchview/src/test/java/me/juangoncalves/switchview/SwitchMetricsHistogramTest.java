@@ -0,0 +1,64 @@
+package me.juangoncalves.switchview;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class SwitchMetricsHistogramTest {
+
+    @Test
+    public void record_countsValuesIntoTheirBuckets() {
+        SwitchMetricsHistogram histogram = new SwitchMetricsHistogram(10, 20, 30);
+        histogram.record(0);
+        histogram.record(10);
+        histogram.record(11);
+        histogram.record(30);
+        histogram.record(31);
+        histogram.record(1000);
+
+        assertEquals(4, histogram.getBucketCount());
+        assertEquals(2, histogram.getCount(0));
+        assertEquals(1, histogram.getCount(1));
+        assertEquals(1, histogram.getCount(2));
+        assertEquals(2, histogram.getCount(3));
+        assertEquals(Long.MAX_VALUE, histogram.getUpperBound(3));
+        assertEquals(6, histogram.getTotalCount());
+        assertEquals(1082, histogram.getSum());
+    }
+
+    @Test
+    public void getPercentile_returnsTheBoundOfTheBucketHoldingIt() {
+        SwitchMetricsHistogram histogram = new SwitchMetricsHistogram(10, 20, 30);
+        assertEquals(0, histogram.getPercentile(50));
+        for (int i = 0; i < 90; i++) {
+            histogram.record(5);
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(25);
+        }
+
+        assertEquals(10, histogram.getPercentile(0));
+        assertEquals(10, histogram.getPercentile(90));
+        assertEquals(30, histogram.getPercentile(91));
+        assertEquals(30, histogram.getPercentile(100));
+    }
+
+    @Test
+    public void reset_clearsEveryBucket() {
+        SwitchMetricsHistogram histogram = new SwitchMetricsHistogram(10);
+        histogram.record(5);
+        histogram.record(50);
+        histogram.reset();
+
+        assertEquals(0, histogram.getCount(0));
+        assertEquals(0, histogram.getCount(1));
+        assertEquals(0, histogram.getTotalCount());
+        assertEquals(0, histogram.getSum());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_rejectsUnorderedBounds() {
+        new SwitchMetricsHistogram(10, 10);
+    }
+
+}
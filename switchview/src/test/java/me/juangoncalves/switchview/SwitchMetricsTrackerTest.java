@@ -0,0 +1,106 @@
+package me.juangoncalves.switchview;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SwitchMetricsTrackerTest {
+
+    private static final long FRAME_NANOS = SwitchMetricsTracker.DEFAULT_FRAME_PERIOD_NANOS;
+    private static final int ACTION_UP = 1;
+    private static final int ACTION_MOVE = 2;
+
+    private SwitchMetricsRecorder recorder;
+    private TransitionMetrics lastMetrics;
+    private SwitchMetricsTracker tracker;
+
+    @Before
+    public void setUp() {
+        recorder = new SwitchMetricsRecorder() {
+            @Override
+            public void onTransitionEnd(TransitionMetrics metrics) {
+                super.onTransitionEnd(metrics);
+                lastMetrics = metrics;
+            }
+        };
+        tracker = new SwitchMetricsTracker(recorder);
+    }
+
+    @Test
+    public void transition_countsFramesAndMissedVsyncs() {
+        tracker.onTransitionStart(1000L);
+        long frameTime = 5_000_000_000L;
+        for (int i = 0; i < 10; i++) {
+            tracker.onFrame(frameTime);
+            // The fourth and seventh frames skip a vsync
+            frameTime += (i == 2 || i == 5) ? 2 * FRAME_NANOS : FRAME_NANOS;
+        }
+        tracker.onTransitionEnd(false, 1200L);
+
+        assertEquals(10, lastMetrics.getFrameCount());
+        assertEquals(2, lastMetrics.getJankyFrameCount());
+        assertEquals(200L, lastMetrics.getDurationMillis());
+        assertEquals(-1L, lastMetrics.getInputLatencyMillis());
+        assertFalse(lastMetrics.isCancelled());
+        assertEquals(1, recorder.getTransitionCount());
+        assertEquals(0, recorder.getCancelledTransitionCount());
+    }
+
+    @Test
+    public void transition_usesTheFramePeriodOfTheDisplay() {
+        tracker.setFramePeriodNanos(FRAME_NANOS / 2);
+        tracker.onTransitionStart(0L);
+        tracker.onFrame(0L);
+        tracker.onFrame(FRAME_NANOS);
+        tracker.onTransitionEnd(false, 16L);
+
+        assertEquals(1, lastMetrics.getJankyFrameCount());
+    }
+
+    @Test
+    public void touchUp_reportsTheLatencyOfTheFirstDrawnFrame() {
+        tracker.onInputEvent(ACTION_UP, 100L);
+        tracker.onTransitionStart(104L);
+        tracker.onFrame(FRAME_NANOS);
+        tracker.onDraw(120L);
+        tracker.onFrame(2 * FRAME_NANOS);
+        tracker.onDraw(137L);
+        tracker.onTransitionEnd(false, 300L);
+
+        assertEquals(20L, lastMetrics.getInputLatencyMillis());
+        assertEquals(1, recorder.getTouchUpLatency().getTotalCount());
+        assertEquals(20L, recorder.getTouchUpLatency().getSum());
+        assertEquals(0, recorder.getDragStartLatency().getTotalCount());
+    }
+
+    @Test
+    public void dragStart_reportsTheLatencyWithoutATransition() {
+        tracker.onInputEvent(ACTION_MOVE, 100L);
+        tracker.onDraw(130L);
+        // Frames drawn without a new input event aren't responses
+        tracker.onDraw(147L);
+
+        assertEquals(1, recorder.getDragStartLatency().getTotalCount());
+        assertEquals(30L, recorder.getDragStartLatency().getSum());
+        assertEquals(0, recorder.getTouchUpLatency().getTotalCount());
+        assertEquals(0, recorder.getTransitionCount());
+    }
+
+    @Test
+    public void cancelledTransition_isReported() {
+        tracker.onTransitionStart(0L);
+        tracker.onFrame(FRAME_NANOS);
+        tracker.onTransitionEnd(true, 40L);
+        // Ending it again has no effect
+        tracker.onTransitionEnd(true, 50L);
+
+        assertTrue(lastMetrics.isCancelled());
+        assertEquals(40L, lastMetrics.getDurationMillis());
+        assertEquals(1, recorder.getTransitionCount());
+        assertEquals(1, recorder.getCancelledTransitionCount());
+    }
+
+}
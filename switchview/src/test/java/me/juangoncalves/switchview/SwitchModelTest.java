@@ -0,0 +1,200 @@
+package me.juangoncalves.switchview;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+public class SwitchModelTest {
+
+    private static final long FRAME_NANOS = 16_666_667L;
+    private static final float MIN_LEFT = 121f;
+    private static final float MAX_LEFT = 205f;
+    private static final float MIN_FLING_VELOCITY = 100f;
+
+    private SwitchGeometry geometry;
+    private SwitchModel model;
+    // Sink for the values computed on every frame, so they are not optimized away
+    private int frameChecksum;
+
+    @Before
+    public void setUp() {
+        geometry = new SwitchGeometry(1f, 80);
+        geometry.setColor(0xFF5C5C5C);
+        geometry.update(100f, 240f, 21f, 28f);
+        model = new SwitchModel(geometry, new SwitchAnimator(), true);
+        model.jumpToState(true);
+    }
+
+    @Test
+    public void jumpToState_movesStraightToTheRestingPosition() {
+        model.jumpToState(false);
+        assertFalse(model.isChecked());
+        assertFalse(model.isAnimating());
+        assertEquals(MAX_LEFT, model.getPosition(), 0f);
+        assertTrue(model.isRestingOn(false));
+        assertFalse(model.isRestingOn(true));
+    }
+
+    @Test
+    public void animateToState_reachesTheRestingPosition() {
+        assertTrue(model.animateToState(false, 0L));
+        assertFalse(model.isChecked());
+        runUntilRest(0L);
+        assertEquals(MAX_LEFT, model.getPosition(), 0f);
+        assertTrue(model.isRestingOn(false));
+    }
+
+    @Test
+    public void animateToState_whileAnimatingRetargets() {
+        model.animateToState(false, 0L);
+        model.doFrame(0L);
+        model.doFrame(FRAME_NANOS);
+        assertFalse(model.animateToState(true, 0L));
+        runUntilRest(FRAME_NANOS);
+        assertEquals(MIN_LEFT, model.getPosition(), 0f);
+        assertTrue(model.isChecked());
+    }
+
+    @Test
+    public void dragBy_isAppliedOnTheNextFrameAndClamped() {
+        model.dragBy(30f);
+        model.dragBy(10f);
+        assertEquals(MIN_LEFT, model.getPosition(), 0f);
+        assertTrue(model.needsFrame());
+        assertTrue(model.doFrame(0L));
+        assertEquals(MIN_LEFT + 40f, model.getPosition(), 0f);
+        model.dragBy(500f);
+        model.doFrame(FRAME_NANOS);
+        assertEquals(MAX_LEFT, model.getPosition(), 0f);
+        assertFalse(model.doFrame(FRAME_NANOS * 2));
+    }
+
+    @Test
+    public void settle_snapsToTheClosestSide() {
+        model.dragBy(50f);
+        model.settle(0f, MIN_FLING_VELOCITY);
+        assertFalse(model.isChecked());
+        runUntilRest(0L);
+        assertEquals(MAX_LEFT, model.getPosition(), 0f);
+    }
+
+    @Test
+    public void settle_followsTheFlingDirection() {
+        model.dragBy(10f);
+        model.settle(1500f, MIN_FLING_VELOCITY);
+        assertFalse(model.isChecked());
+
+        model.jumpToState(false);
+        model.dragBy(-10f);
+        model.settle(-1500f, MIN_FLING_VELOCITY);
+        assertTrue(model.isChecked());
+    }
+
+    @Test
+    public void stop_keepsThePositionAndDiscardsPendingDrag() {
+        model.animateToState(false, 0L);
+        model.doFrame(0L);
+        model.doFrame(FRAME_NANOS * 3);
+        float position = model.getPosition();
+        model.dragBy(10f);
+        assertTrue(model.stop());
+        assertFalse(model.needsFrame());
+        assertEquals(position, model.getPosition(), 0f);
+        assertFalse(model.stop());
+    }
+
+    @Test
+    public void predictionOffset_movesOnlyTheDrawnPosition() {
+        model.dragBy(20f);
+        model.setPredictionOffset(15f);
+        assertTrue(model.doFrame(0L));
+        assertEquals(MIN_LEFT + 20f, model.getPosition(), 0f);
+        assertEquals(MIN_LEFT + 35f, model.getDrawnPosition(), 0f);
+        assertFalse(model.isRestingOn(true));
+
+        // Never drawn outside the container
+        model.setPredictionOffset(500f);
+        assertTrue(model.needsFrame());
+        assertTrue(model.doFrame(FRAME_NANOS));
+        assertEquals(MAX_LEFT, model.getDrawnPosition(), 0f);
+        assertFalse(model.needsFrame());
+    }
+
+    @Test
+    public void settle_continuesFromTheDrawnPosition() {
+        model.dragBy(20f);
+        model.setPredictionOffset(10f);
+        model.doFrame(0L);
+        model.settle(0f, MIN_FLING_VELOCITY);
+
+        assertEquals(MIN_LEFT + 30f, model.getPosition(), 0f);
+        assertEquals(model.getPosition(), model.getDrawnPosition(), 0f);
+        runUntilRest(FRAME_NANOS);
+        assertTrue(model.isRestingOn(true));
+    }
+
+    @Test
+    public void repeatedTogglesAndDrags_doNotAllocate() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(allocationBean.isThreadAllocatedMemorySupported());
+        allocationBean.setThreadAllocatedMemoryEnabled(true);
+        long threadId = Thread.currentThread().getId();
+
+        // Warm up so that class loading and the measurement itself are not accounted for
+        runGestures(1_000);
+        allocationBean.getThreadAllocatedBytes(threadId);
+        long before = allocationBean.getThreadAllocatedBytes(threadId);
+        runGestures(10_000);
+        long after = allocationBean.getThreadAllocatedBytes(threadId);
+
+        assertEquals(0L, after - before);
+    }
+
+    /**
+     * Toggles and drags the switch, producing its frames as the drawable does, including the
+     * width and color of the inner shape.
+     */
+    private void runGestures(int count) {
+        long frameTime = 0L;
+        for (int i = 0; i < count; i++) {
+            if (i % 2 == 0) {
+                model.animateToState(!model.isChecked(), 0L);
+            } else {
+                model.dragBy(i % 4 == 1 ? 12f : -12f);
+                model.setPredictionOffset(4f);
+                frameTime = runFrames(frameTime, 2);
+                model.settle(i % 3 == 0 ? 1500f : 0f, MIN_FLING_VELOCITY);
+            }
+            // Interrupt every third transition half way through
+            frameTime = runFrames(frameTime, i % 3 == 0 ? 8 : Integer.MAX_VALUE);
+        }
+    }
+
+    private long runFrames(long frameTime, int maxFrames) {
+        for (int frame = 0; frame < maxFrames && model.needsFrame(); frame++) {
+            if (model.doFrame(frameTime)) {
+                float left = model.getDrawnPosition();
+                frameChecksum += (int) geometry.widthForPosition(left) + geometry.colorForPosition(left);
+            }
+            frameTime += FRAME_NANOS;
+        }
+        return frameTime;
+    }
+
+    private void runUntilRest(long frameTime) {
+        while (model.needsFrame()) {
+            model.doFrame(frameTime);
+            frameTime += FRAME_NANOS;
+        }
+    }
+
+}
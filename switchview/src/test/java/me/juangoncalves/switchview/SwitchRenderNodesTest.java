@@ -0,0 +1,210 @@
+package me.juangoncalves.switchview;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.ColorMatrixColorFilter;
+import android.graphics.RecordingCanvas;
+import android.graphics.RectF;
+import android.graphics.RenderNode;
+import android.graphics.drawable.Drawable;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.LooperMode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Counts the work done by the frames of a toggle: the frames of the vector mode draw the switch
+ * again, while the ones of the render node mode only change properties of its nodes.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 29)
+@LooperMode(LooperMode.Mode.PAUSED)
+public class SwitchRenderNodesTest {
+
+    private static final long FRAME_PERIOD_NANOS = 16_666_667L;
+    // Frames allowed for the switch to settle
+    private static final int MAX_FRAMES = 600;
+
+    private final ManualFrameClock frameClock = new ManualFrameClock();
+    // Display list of the host view, created on Android 10 only
+    private RenderNode displayList;
+    private HostView host;
+    private BllocSwitchDrawable drawable;
+    private int draws;
+    private int frames;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        host = new HostView(context);
+        drawable = new BllocSwitchDrawable(Color.BLACK, true, SwitchDimensions.forDensity(3f));
+        drawable.setBounds(0, 0, 144, 72);
+        drawable.setFrameClock(frameClock);
+        drawable.setCallback(host);
+    }
+
+    @Test
+    public void renderNodes_areTheDefaultOnAndroid10() {
+        assertNotNull(drawable.getRenderNodes());
+    }
+
+    @Test
+    @Config(sdk = 28)
+    public void renderNodes_areNotUsedBeforeAndroid10() {
+        assertNull(drawable.getRenderNodes());
+    }
+
+    @Test
+    public void toggle_inVectorMode_drawsTheSwitchOnEveryFrame() {
+        drawable.setRenderMode(BllocSwitchDrawable.RENDER_MODE_VECTOR);
+        drawHardwareAccelerated();
+
+        toggleUntilIdle();
+
+        assertTrue(frames > 10);
+        assertEquals(frames, draws);
+        assertEquals(0, host.propertyInvalidations);
+    }
+
+    @Test
+    public void toggle_inRenderNodeMode_neitherDrawsNorRecordsAnything() {
+        drawHardwareAccelerated();
+        SwitchRenderNodes renderNodes = drawable.getRenderNodes();
+        int recordings = renderNodes.getRecordings();
+
+        toggleUntilIdle();
+
+        assertTrue(frames > 10);
+        assertEquals(0, draws);
+        assertEquals(frames, host.propertyInvalidations);
+        assertEquals(recordings, renderNodes.getRecordings());
+    }
+
+    @Test
+    public void toggle_inRenderNodeMode_movesTheNodesWithTheInnerShape() {
+        drawHardwareAccelerated();
+        SwitchRenderNodes renderNodes = drawable.getRenderNodes();
+        RectF container = new RectF();
+        RectF innerShape = new RectF();
+
+        drawable.toggle();
+        for (int frame = 1; frame < MAX_FRAMES && frameClock.hasPendingFrame(); frame++) {
+            frameClock.doFrame(frame * FRAME_PERIOD_NANOS);
+            drawable.getShapeBounds(container, innerShape);
+
+            assertEquals("Frame " + frame, innerShape.left, renderNodes.getInnerShapeLeft(), 0f);
+            assertEquals("Frame " + frame, innerShape.width(), renderNodes.getInnerShapeWidth(), 0.001f);
+            // The sides of the stroke are thinned by a bounded amount while it morphs
+            assertTrue("Frame " + frame, renderNodes.getInnerShapeScale() > SwitchRenderNodes.MIN_WIDTH_SCALE);
+            assertTrue("Frame " + frame, renderNodes.getInnerShapeScale() <= 1f);
+        }
+        // And not at all when it rests
+        assertEquals(1f, renderNodes.getInnerShapeScale(), 0f);
+        drawable.toggle();
+        runUntilIdle();
+        assertEquals(1f, renderNodes.getInnerShapeScale(), 0f);
+    }
+
+    @Test
+    public void toggle_afterDrawingOnASoftwareCanvas_drawsTheSwitchOnEveryFrame() {
+        drawHardwareAccelerated();
+        drawable.draw(new Canvas(Bitmap.createBitmap(144, 72, Bitmap.Config.ARGB_8888)));
+
+        drawable.toggle();
+        while (frames < MAX_FRAMES && frameClock.hasPendingFrame()) {
+            frames++;
+            frameClock.doFrame(frames * FRAME_PERIOD_NANOS);
+        }
+
+        assertTrue(frames > 10);
+        assertEquals(frames, host.drawableInvalidations);
+        assertEquals(0, host.propertyInvalidations);
+    }
+
+    @Test
+    public void colorFilter_recordsTheNodesAgainOnTheNextDraw() {
+        drawHardwareAccelerated();
+        SwitchRenderNodes renderNodes = drawable.getRenderNodes();
+        int recordings = renderNodes.getRecordings();
+
+        drawable.setColorFilter(new ColorMatrixColorFilter(new float[20]));
+        drawable.toggle();
+        runFrame();
+
+        assertEquals(1, draws);
+        assertEquals(recordings + 2, renderNodes.getRecordings());
+        assertTrue(renderNodes.canUpdateWithoutDrawing());
+    }
+
+    private void toggleUntilIdle() {
+        drawable.toggle();
+        runUntilIdle();
+    }
+
+    private void runUntilIdle() {
+        while (frames < MAX_FRAMES && frameClock.hasPendingFrame()) {
+            runFrame();
+        }
+    }
+
+    /**
+     * Produces a frame of the switch and draws it again if it was invalidated, as its view would.
+     */
+    private void runFrame() {
+        frames++;
+        frameClock.doFrame(frames * FRAME_PERIOD_NANOS);
+        if (host.drawableInvalidations > 0) {
+            host.drawableInvalidations = 0;
+            drawHardwareAccelerated();
+            draws++;
+        }
+    }
+
+    private void drawHardwareAccelerated() {
+        if (displayList == null) {
+            displayList = new RenderNode("Host");
+        }
+        RecordingCanvas canvas = displayList.beginRecording();
+        try {
+            drawable.draw(canvas);
+        } finally {
+            displayList.endRecording();
+        }
+    }
+
+    private static final class HostView extends View {
+
+        int drawableInvalidations;
+        int propertyInvalidations;
+
+        HostView(Context context) {
+            super(context);
+        }
+
+        @Override
+        public void invalidateDrawable(@NonNull Drawable drawable) {
+            drawableInvalidations++;
+        }
+
+        @Override
+        public void invalidateOutline() {
+            propertyInvalidations++;
+        }
+
+    }
+
+}
@@ -0,0 +1,22 @@
+package me.juangoncalves.switchview;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SwitchStateCodecTest {
+
+    @Test
+    public void decodeChecked_returnsTheEncodedState() {
+        assertTrue(SwitchStateCodec.decodeChecked(SwitchStateCodec.encode(true)));
+        assertFalse(SwitchStateCodec.decodeChecked(SwitchStateCodec.encode(false)));
+    }
+
+    @Test
+    public void decodeChecked_ignoresTheOtherBits() {
+        assertTrue(SwitchStateCodec.decodeChecked(SwitchStateCodec.encode(true) | 0xF0));
+        assertFalse(SwitchStateCodec.decodeChecked(SwitchStateCodec.encode(false) | 0xF0));
+    }
+
+}
@@ -0,0 +1,126 @@
+package me.juangoncalves.switchview;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SwitchStateSetTest {
+
+    private SwitchStateSet states;
+
+    @Before
+    public void setUp() {
+        states = new SwitchStateSet();
+    }
+
+    @Test
+    public void setChecked_growsToAnyId() {
+        assertFalse(states.isChecked(10_000));
+        states.setChecked(10_000, true);
+        states.setChecked(3, true);
+        states.toggle(64);
+
+        assertTrue(states.isChecked(10_000));
+        assertTrue(states.isChecked(3));
+        assertTrue(states.isChecked(64));
+        assertFalse(states.isChecked(63));
+        assertEquals(3, states.getCheckedCount());
+
+        states.setChecked(3, false);
+        assertFalse(states.isChecked(3));
+        assertEquals(2, states.getCheckedCount());
+    }
+
+    @Test
+    public void setCheckedRange_setsEveryIdInTheRangeOnly() {
+        states.setCheckedRange(60, 200, true);
+        assertFalse(states.isChecked(59));
+        assertTrue(states.isChecked(60));
+        assertTrue(states.isChecked(128));
+        assertTrue(states.isChecked(199));
+        assertFalse(states.isChecked(200));
+        assertEquals(140, states.getCheckedCount());
+
+        states.setCheckedRange(100, 1000, false);
+        assertTrue(states.isChecked(99));
+        assertFalse(states.isChecked(100));
+        assertEquals(40, states.getCheckedCount());
+
+        states.setCheckedRange(5, 5, true);
+        assertEquals(40, states.getCheckedCount());
+    }
+
+    @Test
+    public void dirtyIds_areTheOnesWhoseStateChanged() {
+        states.setChecked(5, true);
+        states.clearDirty();
+        assertFalse(states.hasDirtyIds());
+
+        states.setChecked(5, true);
+        states.setChecked(70, true);
+        states.setCheckedRange(0, 10, true);
+        assertTrue(states.hasDirtyIds());
+
+        StringBuilder dirty = new StringBuilder();
+        for (int id = states.nextDirtyId(0); id != -1; id = states.nextDirtyId(id + 1)) {
+            dirty.append(id).append(' ');
+        }
+        assertEquals("0 1 2 3 4 6 7 8 9 70 ", dirty.toString());
+        assertEquals(-1, states.nextDirtyId(71));
+        assertEquals(-1, states.nextDirtyId(100_000));
+    }
+
+    @Test
+    public void clear_marksTheCheckedIdsAsDirty() {
+        states.setChecked(1, true);
+        states.setChecked(130, true);
+        states.clearDirty();
+        states.clear();
+
+        assertEquals(0, states.getCheckedCount());
+        assertEquals(1, states.nextDirtyId(0));
+        assertEquals(130, states.nextDirtyId(2));
+    }
+
+    @Test
+    public void byteArray_roundTripsTheStates() {
+        states = new SwitchStateSet(1000);
+        states.setChecked(0, true);
+        states.setChecked(63, true);
+        states.setChecked(64, true);
+        states.setChecked(200, true);
+
+        byte[] bytes = states.toByteArray();
+        // Trailing unchecked words are not written
+        assertEquals(4 * 8, bytes.length);
+        SwitchStateSet restored = SwitchStateSet.fromByteArray(bytes);
+        for (int id = 0; id < 1000; id++) {
+            assertEquals(states.isChecked(id), restored.isChecked(id));
+        }
+        assertFalse(restored.hasDirtyIds());
+        assertArrayEquals(bytes, restored.toByteArray());
+    }
+
+    @Test
+    public void byteArray_ofAnEmptySet_isEmpty() {
+        assertEquals(0, states.toByteArray().length);
+        SwitchStateSet restored = SwitchStateSet.fromByteArray(new byte[0]);
+        restored.setChecked(1, true);
+        assertTrue(restored.isChecked(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fromByteArray_rejectsPartialWords() {
+        SwitchStateSet.fromByteArray(new byte[7]);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void negativeIds_areRejected() {
+        states.isChecked(-1);
+    }
+
+}